@@ -0,0 +1,44 @@
+package jynxmacro.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// score is source lines per second; run with -prof gc for gc.alloc.rate.norm (bytes per line)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(JynxSource.LINES)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class AssembleBenchmark {
+
+    @Param
+    public JynxSource input;
+
+    private String source;
+    
+    @Setup
+    public void setup() {
+        source = input.source();
+        Assembler.assemble(source, input.classname()); // fail fast if the source does not assemble
+    }
+
+    @Benchmark
+    public byte[] assemble() {
+        return Assembler.assemble(source, input.classname());
+    }
+
+}
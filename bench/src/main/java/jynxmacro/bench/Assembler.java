@@ -0,0 +1,25 @@
+package jynxmacro.bench;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import jynx2asm.JynxClass;
+import jynx2asm.JynxScanner;
+
+// the only place the benchmarks depend on the Jynx assembler entry point
+final class Assembler {
+
+    private Assembler() {}
+
+    static byte[] assemble(String source, String sourcename) {
+        InputStream in = new ByteArrayInputStream(source.getBytes(StandardCharsets.UTF_8));
+        JynxScanner lines = JynxScanner.getInstance(in);
+        byte[] bytes = JynxClass.getBytes(sourcename, lines);
+        if (bytes == null) {
+            throw new IllegalStateException("assembly of " + sourcename + " failed");
+        }
+        return bytes;
+    }
+
+}
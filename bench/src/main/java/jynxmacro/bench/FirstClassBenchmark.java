@@ -0,0 +1,41 @@
+package jynxmacro.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// time to assemble the first class in a fresh JVM, including macro library loading and initialisation
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(20)
+public class FirstClassBenchmark {
+
+    @Param
+    public JynxSource input;
+
+    private String source;
+    
+    @Setup
+    public void setup() {
+        source = input.source();
+    }
+
+    @Benchmark
+    public byte[] firstClass() {
+        return Assembler.assemble(source, input.classname());
+    }
+
+}
@@ -0,0 +1,208 @@
+package jynxmacro.bench;
+
+import java.util.function.Consumer;
+
+// generated .jx sources; every source has exactly LINES instruction lines so results are per line
+public enum JynxSource {
+
+    WASM_LONG("wasm32MVP", "(II)I", JynxSource::wasmLong, "LOCAL_GET 1", "RETURN"),
+    WASM_NESTED("wasm32MVP", "(II)I", JynxSource::wasmNested, "LOCAL_GET 1", "RETURN"),
+    ASMTEXT("ASMTextOps", "(II)I", JynxSource::asmText, "ILOAD 1", "IRETURN"),
+    STRUCTURED("structured", "(II)I", JynxSource::structured, "iload_1", "ireturn"),
+    EXTENSION("extension", "(II)I", JynxSource::extension, "iload_1", "ireturn"),
+    ;
+
+    public static final int LINES = 10_000;
+    
+    private static final String ENVIRONMENT = "Lcom/github/david32768/jynxwasi/Environment;";
+    private static final int NESTING = 16;
+
+    private final String macrolib;
+    private final String desc;
+    private final Consumer<Body> unit;
+    private final String[] tail;
+
+    private JynxSource(String macrolib, String desc, Consumer<Body> unit, String... tail) {
+        this.macrolib = macrolib;
+        this.desc = desc;
+        this.unit = unit;
+        this.tail = tail;
+    }
+
+    public String macrolib() {
+        return macrolib;
+    }
+
+    public String classname() {
+        return "bench/" + name();
+    }
+    
+    public String source() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(".version V11\n");
+        sb.append(".macrolib ").append(macrolib).append('\n');
+        sb.append(".class public ").append(classname()).append('\n');
+        sb.append(".super java/lang/Object\n");
+        if (macrolib.equals("wasm32MVP")) {
+            sb.append(".field public static __Environment ").append(ENVIRONMENT).append('\n');
+        }
+        sb.append(".method public static f").append(desc).append('\n');
+        Body body = new Body(sb, LINES - tail.length);
+        while (body.remaining() > 0) {
+            unit.accept(body);
+        }
+        for (String line : tail) {
+            sb.append("  ").append(line).append('\n');
+        }
+        sb.append(".end_method\n");
+        return sb.toString();
+    }
+
+    // collects instruction lines; a unit that does not fit is replaced by padding
+    private static class Body {
+
+        private final StringBuilder sb;
+        private final StringBuilder unitsb;
+        private final int limit;
+        private int count;
+        private int unitcount;
+        private int labels;
+        
+        private Body(StringBuilder sb, int limit) {
+            this.sb = sb;
+            this.unitsb = new StringBuilder();
+            this.limit = limit;
+        }
+
+        private int remaining() {
+            return limit - count;
+        }
+        
+        private String newLabel() {
+            return "L" + labels++;
+        }
+        
+        private void line(String line) {
+            unitsb.append("  ").append(line).append('\n');
+            ++unitcount;
+        }
+
+        private void endUnit(String padding) {
+            if (count + unitcount > limit) {
+                unitsb.setLength(0);
+                unitcount = 0;
+                while (count < limit) {
+                    sb.append("  ").append(padding).append('\n');
+                    ++count;
+                }
+                return;
+            }
+            sb.append(unitsb);
+            count += unitcount;
+            unitsb.setLength(0);
+            unitcount = 0;
+        }
+
+    }
+
+    // straight-line wasm arithmetic, memory and compare ops
+    private static void wasmLong(Body body) {
+        body.line("LOCAL_GET 0");
+        body.line("I32_CONST 16");
+        body.line("I32_ADD");
+        body.line("I32_LOAD 2 0");
+        body.line("LOCAL_GET 1");
+        body.line("I32_MUL");
+        body.line("LOCAL_SET 1");
+        body.line("LOCAL_GET 1");
+        body.line("LOCAL_GET 0");
+        body.line("I32_LT_U");
+        body.line("IF");
+        body.line("LOCAL_GET 1");
+        body.line("I32_CONST 3");
+        body.line("I32_SHL");
+        body.line("LOCAL_SET 1");
+        body.line("END");
+        body.line("LOCAL_GET 1");
+        body.line("I64_EXTEND_U_I32");
+        body.line("I64_CONST 1");
+        body.line("I64_ADD");
+        body.line("I32_WRAP_I64");
+        body.line("LOCAL_SET 1");
+        body.endUnit("NOP");
+    }
+
+    // deeply nested BLOCK/LOOP/IF
+    private static void wasmNested(Body body) {
+        for (int i = 0; i < NESTING; ++i) {
+            switch (i % 3) {
+                case 0:
+                    body.line("BLOCK");
+                    break;
+                case 1:
+                    body.line("LOOP");
+                    break;
+                default:
+                    body.line("LOCAL_GET 0");
+                    body.line("IF");
+                    break;
+            }
+        }
+        body.line("LOCAL_GET 1");
+        body.line("I32_CONST 1");
+        body.line("I32_ADD");
+        body.line("LOCAL_SET 1");
+        for (int i = 0; i < NESTING; ++i) {
+            body.line("END");
+        }
+        body.endUnit("NOP");
+    }
+
+    // the style of output produced by ASM's Textifier
+    private static void asmText(Body body) {
+        String start = body.newLabel();
+        String skip = body.newLabel();
+        body.line(start);
+        body.line("LINENUMBER 10 " + start);
+        body.line("ILOAD 0");
+        body.line("ILOAD 1");
+        body.line("IADD");
+        body.line("ISTORE 1");
+        body.line("ILOAD 1");
+        body.line("ICONST_5");
+        body.line("IF_ICMPGE " + skip);
+        body.line("IINC 1 1");
+        body.line(skip);
+        body.line("FRAME SAME");
+        body.endUnit("NOP");
+    }
+
+    private static void structured(Body body) {
+        body.line("iload_0");
+        body.line("iload_1");
+        body.line("IF_ICMPLT");
+        body.line("iinc 1 1");
+        body.line("ELSE");
+        body.line("iinc 0 1");
+        body.line("END");
+        body.line("BLOCK");
+        body.line("iinc 1 -1");
+        body.line("END");
+        body.endUnit("nop");
+    }
+
+    private static void extension(Body body) {
+        body.line("iload_0");
+        body.line("ildc 240");
+        body.line("iadd");
+        body.line("iabs");
+        body.line("istore_0");
+        body.line("lldc 32768");
+        body.line("l2i");
+        body.line("iload_1");
+        body.line("iadd");
+        body.line("istore_1");
+        body.endUnit("nop");
+    }
+
+}
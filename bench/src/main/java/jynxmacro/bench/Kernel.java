@@ -0,0 +1,104 @@
+package jynxmacro.bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+import static org.objectweb.asm.Opcodes.*;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+
+// a generated class whose static method run([J[J)I sums a lowering applied to each pair of elements
+public final class Kernel {
+
+    private static final String RUN_DESC = "([J[J)I";
+    
+    private final MethodHandle run;
+    private final int opsize;
+
+    private Kernel(MethodHandle run, int opsize) {
+        this.run = run;
+        this.opsize = opsize;
+    }
+
+    public MethodHandle run() {
+        return run;
+    }
+
+    // bytecode length of the lowering alone
+    public int opsize() {
+        return opsize;
+    }
+    
+    public static Kernel of(Lowering lowering) {
+        String classname = "jynxmacro/bench/kernel/" + lowering.name();
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS);
+        cw.visit(V11, ACC_PUBLIC | ACC_FINAL | ACC_SUPER, classname, null, "java/lang/Object", null);
+        MethodVisitor mv = cw.visitMethod(ACC_PUBLIC | ACC_STATIC, "run", RUN_DESC, null, null);
+        mv.visitCode();
+        // locals: 0 = x, 1 = y, 2 = i, 3 = sum
+        Label loop = new Label();
+        Label end = new Label();
+        Label opstart = new Label();
+        Label opend = new Label();
+        mv.visitInsn(ICONST_0);
+        mv.visitVarInsn(ISTORE, 3);
+        mv.visitInsn(ICONST_0);
+        mv.visitVarInsn(ISTORE, 2);
+        mv.visitLabel(loop);
+        mv.visitVarInsn(ILOAD, 2);
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitInsn(ARRAYLENGTH);
+        mv.visitJumpInsn(IF_ICMPGE, end);
+        mv.visitVarInsn(ILOAD, 3);
+        load(mv, 0, lowering.operand1());
+        load(mv, 1, lowering.operand2());
+        mv.visitLabel(opstart);
+        lowering.emit(mv);
+        mv.visitLabel(opend);
+        mv.visitInsn(IADD);
+        mv.visitVarInsn(ISTORE, 3);
+        mv.visitIincInsn(2, 1);
+        mv.visitJumpInsn(GOTO, loop);
+        mv.visitLabel(end);
+        mv.visitVarInsn(ILOAD, 3);
+        mv.visitInsn(IRETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+        cw.visitEnd();
+        byte[] bytes = cw.toByteArray();
+        int opsize = opend.getOffset() - opstart.getOffset();
+        Class<?> klass = new KernelLoader().define(classname.replace('/', '.'), bytes);
+        try {
+            MethodType mt = MethodType.methodType(int.class, long[].class, long[].class);
+            MethodHandle run = MethodHandles.publicLookup().findStatic(klass, "run", mt);
+            return new Kernel(run, opsize);
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static void load(MethodVisitor mv, int array, Operand operand) {
+        if (operand == null) {
+            return;
+        }
+        mv.visitVarInsn(ALOAD, array);
+        mv.visitVarInsn(ILOAD, 2);
+        mv.visitInsn(LALOAD);
+        operand.convert(mv);
+    }
+
+    private static class KernelLoader extends ClassLoader {
+
+        private KernelLoader() {
+            super(Kernel.class.getClassLoader());
+        }
+
+        private Class<?> define(String name, byte[] bytes) {
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+
+}
@@ -0,0 +1,66 @@
+package jynxmacro.bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jynxmacro.ASMTextMacroLib;
+
+// ASMTextOps label recognition against the regex it replaced
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(LabelTesterBenchmark.TOKEN_COUNT)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class LabelTesterBenchmark {
+
+    static final int TOKEN_COUNT = 8;
+
+    private static final String[] TOKENS = {
+        "L0", "L123", "L4567", "ILOAD", "1", "java/lang/Object", "Lfoo", "L9x",
+    };
+
+    private Predicate<String> tester;
+    
+    @Setup
+    public void setup() {
+        assert TOKENS.length == TOKEN_COUNT;
+        tester = new ASMTextMacroLib().labelTester();
+    }
+
+    @Benchmark
+    public int regex() {
+        int count = 0;
+        for (String token : TOKENS) {
+            if (token.matches("L[0-9]+")) {
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int labelTester() {
+        int count = 0;
+        for (String token : TOKENS) {
+            if (tester.test(token)) {
+                ++count;
+            }
+        }
+        return count;
+    }
+
+}
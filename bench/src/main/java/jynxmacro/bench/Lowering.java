@@ -0,0 +1,264 @@
+package jynxmacro.bench;
+
+import java.util.function.Consumer;
+
+import static org.objectweb.asm.Opcodes.*;
+
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+
+// candidate lowerings of WasmOps; each takes its operands on the stack and leaves an int
+// SIZE is the current WasmOps lowering, BRANCH uses a single label as a macro can
+public enum Lowering {
+
+    // inv_icompare, aux_ieq
+    I32_EQ_SIZE(Operand.I, Operand.I, mv -> {
+        mv.visitMethodInsn(INVOKESTATIC, "java/lang/Integer", "compare", "(II)I", false);
+        mv.visitMethodInsn(INVOKESTATIC, "java/lang/Integer", "signum", "(I)I", false);
+        ieqM101(mv);
+    }),
+    I32_EQ_BRANCH(Operand.I, Operand.I, mv -> branch2(mv, IF_ICMPEQ)),
+    
+    // inv_iucompare, aux_ilt
+    I32_LT_U_SIZE(Operand.I, Operand.I, mv -> {
+        mv.visitMethodInsn(INVOKESTATIC, "java/lang/Integer", "compareUnsigned", "(II)I", false);
+        ilt(mv);
+    }),
+    I32_LT_U_BRANCH(Operand.I, Operand.I, mv -> {
+        mv.visitLdcInsn(Integer.MIN_VALUE);
+        mv.visitInsn(IXOR);
+        mv.visitInsn(SWAP);
+        mv.visitLdcInsn(Integer.MIN_VALUE);
+        mv.visitInsn(IXOR);
+        mv.visitInsn(SWAP);
+        branch2(mv, IF_ICMPLT);
+    }),
+    
+    // inv_icompare, aux_igt
+    I32_GT_S_SIZE(Operand.I, Operand.I, mv -> {
+        mv.visitMethodInsn(INVOKESTATIC, "java/lang/Integer", "compare", "(II)I", false);
+        mv.visitInsn(I2L);
+        mv.visitInsn(LNEG);
+        mv.visitInsn(ICONST_M1);
+        mv.visitInsn(LUSHR);
+        mv.visitInsn(L2I);
+    }),
+    I32_GT_S_BRANCH(Operand.I, Operand.I, mv -> branch2(mv, IF_ICMPGT)),
+    
+    // asm_i2l, asm_lconst_0, asm_lcmp, aux_ieq_m101
+    I32_EQZ_SIZE(Operand.I, null, mv -> {
+        mv.visitInsn(I2L);
+        mv.visitInsn(LCONST_0);
+        mv.visitInsn(LCMP);
+        ieqM101(mv);
+    }),
+    I32_EQZ_BRANCH(Operand.I, null, mv -> branch1(mv, IFEQ)),
+    
+    // asm_lcmp, aux_ieq_m101
+    I64_EQ_SIZE(Operand.J, Operand.J, mv -> {
+        mv.visitInsn(LCMP);
+        ieqM101(mv);
+    }),
+    I64_EQ_BRANCH(Operand.J, Operand.J, mv -> {
+        mv.visitInsn(LCMP);
+        branch1(mv, IFEQ);
+    }),
+    
+    // inv_lucompare, aux_ilt
+    I64_LT_U_SIZE(Operand.J, Operand.J, mv -> {
+        mv.visitMethodInsn(INVOKESTATIC, "java/lang/Long", "compareUnsigned", "(JJ)I", false);
+        ilt(mv);
+    }),
+    I64_LT_U_BRANCH(Operand.J, Operand.J, mv -> {
+        mv.visitMethodInsn(INVOKESTATIC, "java/lang/Long", "compareUnsigned", "(JJ)I", false);
+        branch1(mv, IFLT);
+    }),
+    
+    // asm_dcmpg, aux_ilt_m101
+    F64_LT_SIZE(Operand.D, Operand.D, mv -> {
+        mv.visitInsn(DCMPG);
+        ilt(mv);
+    }),
+    F64_LT_BRANCH(Operand.D, Operand.D, mv -> {
+        mv.visitInsn(DCMPG);
+        branch1(mv, IFLT);
+    }),
+    
+    // callHelper("intDiv","(II)I")
+    I32_DIV_S_SIZE(Operand.I, Operand.NZ, mv -> {
+        mv.visitMethodInsn(INVOKESTATIC, "jynxmacro/bench/WasmHelper", "intDiv", "(II)I", false);
+    }),
+    // divisor -1 calls the helper then divides by 1; not used as no faster than SIZE
+    I32_DIV_S_BRANCH(Operand.I, Operand.NZ, mv -> {
+        Label label = new Label();
+        mv.visitInsn(DUP);
+        mv.visitInsn(ICONST_M1);
+        mv.visitJumpInsn(IF_ICMPNE, label);
+        mv.visitMethodInsn(INVOKESTATIC, "jynxmacro/bench/WasmHelper", "intDiv", "(II)I", false);
+        mv.visitInsn(ICONST_1);
+        mv.visitLabel(label);
+        mv.visitInsn(IDIV);
+    }),
+
+    // inv_iudiv
+    I32_DIV_U_SIZE(Operand.I, Operand.NZ, mv -> {
+        mv.visitMethodInsn(INVOKESTATIC, "java/lang/Integer", "divideUnsigned", "(II)I", false);
+    }),
+    I32_DIV_U_LONG(Operand.I, Operand.NZ, mv -> {
+        mv.visitInsn(SWAP);
+        mv.visitMethodInsn(INVOKESTATIC, "java/lang/Integer", "toUnsignedLong", "(I)J", false);
+        mv.visitInsn(DUP2_X1);
+        mv.visitInsn(POP2);
+        mv.visitMethodInsn(INVOKESTATIC, "java/lang/Integer", "toUnsignedLong", "(I)J", false);
+        mv.visitInsn(LDIV);
+        mv.visitInsn(L2I);
+    }),
+
+    // callHelper("longDiv","(JJ)J")
+    I64_DIV_S_SIZE(Operand.J, Operand.JNZ, mv -> {
+        mv.visitMethodInsn(INVOKESTATIC, "jynxmacro/bench/WasmHelper", "longDiv", "(JJ)J", false);
+        mv.visitInsn(L2I);
+    }),
+    // as I32_DIV_S_BRANCH; not used as no faster than SIZE
+    I64_DIV_S_BRANCH(Operand.J, Operand.JNZ, mv -> {
+        Label label = new Label();
+        mv.visitInsn(DUP2);
+        mv.visitInsn(LCONST_1);
+        mv.visitInsn(LNEG);
+        mv.visitInsn(LCMP);
+        mv.visitJumpInsn(IFNE, label);
+        mv.visitMethodInsn(INVOKESTATIC, "jynxmacro/bench/WasmHelper", "longDiv", "(JJ)J", false);
+        mv.visitInsn(LCONST_1);
+        mv.visitLabel(label);
+        mv.visitInsn(LDIV);
+        mv.visitInsn(L2I);
+    }),
+
+    // callHelper("doubleToInt","(D)I")
+    I32_TRUNC_S_F64_SIZE(Operand.DT, null, mv -> {
+        mv.visitMethodInsn(INVOKESTATIC, "jynxmacro/bench/WasmHelper", "doubleToInt", "(D)I", false);
+    }),
+    // wasm32MVP_speed I32_TRUNC_S_F64
+    I32_TRUNC_S_F64_BRANCH(Operand.DT, null, mv -> {
+        mv.visitInsn(DUP2);
+        range(mv, -0.5, 2147483648.5);
+        trap(mv, "doubleToInt", "(D)I");
+        mv.visitInsn(D2I);
+    }),
+
+    // callHelper("doubleToUnsignedInt","(D)I")
+    I32_TRUNC_U_F64_SIZE(Operand.DT, null, mv -> {
+        mv.visitMethodInsn(INVOKESTATIC, "jynxmacro/bench/WasmHelper", "doubleToUnsignedInt", "(D)I", false);
+    }),
+    // wasm32MVP_speed I32_TRUNC_U_F64
+    I32_TRUNC_U_F64_BRANCH(Operand.DT, null, mv -> {
+        mv.visitInsn(DUP2);
+        range(mv, 2147483647.5, 2147483648.5);
+        trap(mv, "doubleToUnsignedInt", "(D)I");
+        mv.visitInsn(D2L);
+        mv.visitInsn(L2I);
+    }),
+
+    // callHelper("doubleToLong","(D)J")
+    I64_TRUNC_S_F64_SIZE(Operand.DT, null, mv -> {
+        mv.visitMethodInsn(INVOKESTATIC, "jynxmacro/bench/WasmHelper", "doubleToLong", "(D)J", false);
+        mv.visitInsn(L2I);
+    }),
+    // -2^63 <= d < 2^63 checked inline; not used as slower than SIZE
+    I64_TRUNC_S_F64_BRANCH(Operand.DT, null, mv -> {
+        mv.visitInsn(DUP2);
+        mv.visitInsn(DUP2);
+        mv.visitLdcInsn(0x1p63);
+        mv.visitInsn(DCMPG);
+        mv.visitInsn(DUP_X2);
+        mv.visitInsn(POP);
+        mv.visitLdcInsn(-0x1p63);
+        mv.visitInsn(DCMPL);
+        mv.visitInsn(ICONST_M1);
+        mv.visitInsn(IXOR);
+        mv.visitInsn(IAND);
+        trap(mv, "doubleToLong", "(D)J");
+        mv.visitInsn(D2L);
+        mv.visitInsn(L2I);
+    }),
+    ;
+
+    private final Operand operand1;
+    private final Operand operand2;
+    private final Consumer<MethodVisitor> emitter;
+
+    private Lowering(Operand operand1, Operand operand2, Consumer<MethodVisitor> emitter) {
+        this.operand1 = operand1;
+        this.operand2 = operand2;
+        this.emitter = emitter;
+    }
+
+    public Operand operand1() {
+        return operand1;
+    }
+
+    public Operand operand2() {
+        return operand2;
+    }
+
+    void emit(MethodVisitor mv) {
+        emitter.accept(mv);
+    }
+
+    // aux_ieq_m101
+    private static void ieqM101(MethodVisitor mv) {
+        mv.visitInsn(ICONST_1);
+        mv.visitInsn(IAND);
+        mv.visitInsn(ICONST_1);
+        mv.visitInsn(IXOR);
+    }
+
+    // aux_ilt
+    private static void ilt(MethodVisitor mv) {
+        mv.visitInsn(ICONST_M1);
+        mv.visitInsn(IUSHR);
+    }
+
+    // aux_i32_range, aux_u32_range: d -> int < 0 if |d - centre| < radius
+    private static void range(MethodVisitor mv, double centre, double radius) {
+        mv.visitLdcInsn(-centre);
+        mv.visitInsn(DADD);
+        mv.visitMethodInsn(INVOKESTATIC, "java/lang/Math", "abs", "(D)D", false);
+        mv.visitLdcInsn(radius);
+        mv.visitInsn(DCMPG);
+    }
+
+    // x int -> x; if int >= 0 the helper traps on x
+    private static void trap(MethodVisitor mv, String helper, String desc) {
+        Label label = new Label();
+        mv.visitJumpInsn(IFLT, label);
+        mv.visitMethodInsn(INVOKESTATIC, "jynxmacro/bench/WasmHelper", helper, desc, false);
+        mv.visitInsn(ACONST_NULL);
+        mv.visitInsn(ATHROW);
+        mv.visitLabel(label);
+    }
+
+    // x y -> 1 x y; branch to label with 1 if true else 1 ^ 1
+    private static void branch2(MethodVisitor mv, int opcode) {
+        Label label = new Label();
+        mv.visitInsn(ICONST_1);
+        mv.visitInsn(DUP_X2);
+        mv.visitInsn(POP);
+        mv.visitJumpInsn(opcode, label);
+        mv.visitInsn(ICONST_1);
+        mv.visitInsn(IXOR);
+        mv.visitLabel(label);
+    }
+
+    // x -> 1 x; branch to label with 1 if true else 1 ^ 1
+    private static void branch1(MethodVisitor mv, int opcode) {
+        Label label = new Label();
+        mv.visitInsn(ICONST_1);
+        mv.visitInsn(SWAP);
+        mv.visitJumpInsn(opcode, label);
+        mv.visitInsn(ICONST_1);
+        mv.visitInsn(IXOR);
+        mv.visitLabel(label);
+    }
+
+}
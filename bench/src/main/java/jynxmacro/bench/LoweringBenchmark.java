@@ -0,0 +1,71 @@
+package jynxmacro.bench;
+
+import java.lang.invoke.MethodHandle;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// steady-state cost per op of each candidate lowering; LoweringSizes prints their bytecode sizes
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(LoweringBenchmark.SIZE)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-XX:-TieredCompilation"}) // C2 only
+public class LoweringBenchmark {
+
+    static final int SIZE = 4096;
+
+    public enum Data {
+        RANDOM,
+        PREDICTABLE,
+    }
+    
+    @Param
+    public Lowering lowering;
+
+    @Param
+    public Data data;
+
+    private MethodHandle run;
+    private long[] x;
+    private long[] y;
+
+    @Setup
+    public void setup() {
+        run = Kernel.of(lowering).run();
+        x = values(lowering.operand1(), 1);
+        y = values(lowering.operand2(), 2);
+    }
+
+    private long[] values(Operand operand, long seed) {
+        long[] values = new long[SIZE];
+        if (operand == null) {
+            return values;
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < SIZE; ++i) {
+            values[i] = data == Data.RANDOM ? operand.random(random) : operand.predictable();
+        }
+        return values;
+    }
+
+    @Benchmark
+    public int kernel() throws Throwable {
+        return (int)run.invokeExact(x, y);
+    }
+
+}
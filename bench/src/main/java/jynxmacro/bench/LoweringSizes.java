@@ -0,0 +1,12 @@
+package jynxmacro.bench;
+
+// prints the bytecode size of each candidate lowering
+public class LoweringSizes {
+
+    public static void main(String[] args) {
+        for (Lowering lowering : Lowering.values()) {
+            System.out.format("%-20s %3d%n", lowering, Kernel.of(lowering).opsize());
+        }
+    }
+
+}
@@ -0,0 +1,75 @@
+package jynxmacro.bench;
+
+import java.util.SplittableRandom;
+
+import static org.objectweb.asm.Opcodes.*;
+
+import org.objectweb.asm.MethodVisitor;
+
+// kernel inputs are long[]; each operand kind converts an element to its stack type
+public enum Operand {
+
+    I, // int
+    NZ, // non-zero int divisor
+    J, // long
+    JNZ, // non-zero long divisor
+    D, // double
+    DT, // double in range of the trapping conversions to int, unsigned int and long
+    ;
+
+    void convert(MethodVisitor mv) {
+        switch (this) {
+            case I:
+            case NZ:
+                mv.visitInsn(L2I);
+                break;
+            case J:
+            case JNZ:
+                break;
+            case D:
+            case DT:
+                mv.visitMethodInsn(INVOKESTATIC, "java/lang/Double", "longBitsToDouble", "(J)D", false);
+                break;
+            default:
+                throw new AssertionError();
+        }
+    }
+
+    // values drawn from a small range so that compares are true and false about equally often
+    long random(SplittableRandom random) {
+        switch (this) {
+            case I:
+                return random.nextInt(-2, 3);
+            case NZ:
+                int divisor = random.nextInt(-2, 3);
+                return divisor == 0 ? 7 : divisor;
+            case J:
+                return random.nextLong(-2, 3);
+            case JNZ:
+                long ldivisor = random.nextLong(-2, 3);
+                return ldivisor == 0 ? 7 : ldivisor;
+            case D:
+                return Double.doubleToRawLongBits(random.nextInt(-2, 3));
+            case DT:
+                return Double.doubleToRawLongBits(random.nextInt(0, 5) + 0.5);
+            default:
+                throw new AssertionError();
+        }
+    }
+
+    // a fixed value so that branches are perfectly predicted
+    long predictable() {
+        switch (this) {
+            case I:
+            case NZ:
+            case J:
+            case JNZ:
+                return 1;
+            case D:
+            case DT:
+                return Double.doubleToRawLongBits(1.0);
+            default:
+                throw new AssertionError();
+        }
+    }
+}
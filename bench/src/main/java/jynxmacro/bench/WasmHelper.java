@@ -0,0 +1,47 @@
+package jynxmacro.bench;
+
+// stand-ins for the com/github/david32768/jynxwasi/Helper methods used by the lowerings
+public class WasmHelper {
+
+    private WasmHelper() {}
+
+    public static int intDiv(int x, int y) {
+        if (x == Integer.MIN_VALUE && y == -1) {
+            throw new ArithmeticException("integer overflow");
+        }
+        return x / y;
+    }
+
+    public static long longDiv(long x, long y) {
+        if (x == Long.MIN_VALUE && y == -1) {
+            throw new ArithmeticException("integer overflow");
+        }
+        return x / y;
+    }
+
+    public static int doubleToInt(double x) {
+        if (x > -2147483649.0 && x < 2147483648.0) {
+            return (int)x;
+        }
+        throw conversionTrap(x);
+    }
+
+    public static int doubleToUnsignedInt(double x) {
+        if (x > -1.0 && x < 4294967296.0) {
+            return (int)(long)x;
+        }
+        throw conversionTrap(x);
+    }
+
+    public static long doubleToLong(double x) {
+        if (x >= -0x1p63 && x < 0x1p63) {
+            return (long)x;
+        }
+        throw conversionTrap(x);
+    }
+
+    private static ArithmeticException conversionTrap(double x) {
+        return new ArithmeticException(Double.isNaN(x)? "invalid conversion to integer": "integer overflow");
+    }
+
+}
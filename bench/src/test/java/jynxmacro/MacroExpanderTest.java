@@ -0,0 +1,60 @@
+package jynxmacro;
+
+import static jynx2asm.ops.JvmOp.*;
+import static jynx2asm.ops.LineOps.*;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import jynx2asm.ops.JynxOp;
+import jynx2asm.ops.MacroOp;
+
+// a nested macro is expanded in place unless it has a LineOps op, when it is kept so labels are as unexpanded
+class MacroExpanderTest {
+
+    private enum TestOps implements MacroOp {
+
+        plain(asm_iconst_1, asm_ixor),
+        labelled(asm_iconst_1, mac_label, xxx_label),
+        outer(plain, asm_pop),
+        outer_labelled(plain, labelled),
+        ;
+
+        private final JynxOp[] jynxOps;
+
+        private TestOps(JynxOp... jops) {
+            this.jynxOps = jops;
+        }
+
+        @Override
+        public JynxOp[] getJynxOps() {
+            return jynxOps;
+        }
+
+    }
+
+    @Test
+    void expandsMacroWithoutLineOps() {
+        JynxOp[] expected = {asm_iconst_1, asm_ixor, asm_pop};
+        assertArrayEquals(expected, MacroExpander.flatten("test", TestOps.outer));
+    }
+
+    @Test
+    void keepsMacroWithLabel() {
+        JynxOp[] expected = {mac_label, asm_ifeq, TestOps.labelled};
+        assertArrayEquals(expected, MacroExpander.flatten("test", mac_label, asm_ifeq, TestOps.labelled));
+    }
+
+    @Test
+    void keepsMacroThatNestsLabel() {
+        JynxOp[] expected = {TestOps.outer_labelled, asm_pop};
+        assertArrayEquals(expected, MacroExpander.flatten("test", TestOps.outer_labelled, asm_pop));
+    }
+
+    @Test
+    void unresolvedOpFails() {
+        assertThrows(IllegalStateException.class, () -> MacroExpander.flatten("test", asm_pop, null));
+    }
+
+}
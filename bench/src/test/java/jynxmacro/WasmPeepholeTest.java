@@ -0,0 +1,46 @@
+package jynxmacro;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+// golden files in resources/peephole; name.jx is optimized and compared with name.expected.jx
+class WasmPeepholeTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {"fusion", "inverse", "eqzpair", "fold", "identity", "pow2"})
+    void golden(String name) throws IOException {
+        check(name, false);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"storevalue", "offset"})
+    void goldenLowMemoryUnused(String name) throws IOException {
+        check(name, true);
+    }
+
+    private static void check(String name, boolean lowMemoryUnused) throws IOException {
+        List<String> input = lines(name + ".jx");
+        List<String> expected = lines(name + ".expected.jx");
+        assertEquals(expected, WasmPeephole.optimize(input, lowMemoryUnused), name);
+    }
+
+    private static List<String> lines(String resource) throws IOException {
+        try (InputStream in = WasmPeepholeTest.class.getResourceAsStream("/peephole/" + resource)) {
+            assertNotNull(in, resource);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            return reader.lines().collect(Collectors.toList());
+        }
+    }
+
+}
@@ -0,0 +1,96 @@
+package jynxmacro.bench;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.util.CheckClassAdapter;
+
+import jynx2asm.ops.MacroLib;
+
+// every registered macro library assembles a module that uses its own ops
+//  and the assembled class passes the ASM data flow check
+// the runtime (com/github/david32768/jynxwasi) is not needed as the classes are not loaded
+class LibraryTest {
+
+    private static final String ENVIRONMENT = "Lcom/github/david32768/jynxwasi/Environment;";
+
+    private static final Map<String, String> MODULES = new LinkedHashMap<>();
+
+    static {
+        MODULES.put("wasm32MVP", wasm("wasm32MVP", true,
+                method("f(II)I", "LOCAL_GET 0", "I32_LOAD 2 0", "LOCAL_GET 1", "I32_ATOMIC_RMW_ADD 2 4", "I32_ADD", "RETURN"),
+                method("init()V", "ENVIRONMENT_NEW 0 1", "MEMORY_NEW 1 16", "ENVIRONMENT_ADD_STORAGE 0", "RETURN"),
+                method("g()I", "REF_NULL func", "REF_IS_NULL", "RETURN")));
+        MODULES.put("wasm32MVP_speed", wasm("wasm32MVP_speed", true,
+                method("f(II)I", "LOCAL_GET 0", "LOCAL_GET 1", "I32_LT_U",
+                        "LOCAL_GET 0", "F64_CONVERT_S_I32", "I32_TRUNC_S_F64", "I32_ADD", "RETURN")));
+        MODULES.put("wasm32MVP_startup", wasm("wasm32MVP_startup", true,
+                method("f(II)I", "LOCAL_GET 0", "LOCAL_GET 1", "I32_STORE 2 4", "LOCAL_GET 0", "I32_LOAD 2 0", "RETURN")));
+        MODULES.put("wasm32MVP_instance", wasm("wasm32MVP_instance", false,
+                method("f(II)I", "LOCAL_GET 1", "I32_LOAD 2 0", "LOCAL_GET 2", "I32_ADD", "RETURN"),
+                method("g(III)I", "LOCAL_GET 1", "LOCAL_GET 2", "LOCAL_GET 3", "CALL_INDIRECT 0 (III)I", "RETURN"),
+                method("h()I", "REF_FUNC lib/wasm32MVP_instance/f(II)I", "REF_IS_NULL", "RETURN"),
+                method("k(I)I", "LOCAL_GET 1", "CALL_STATIC java/lang/Math/abs(I)I", "RETURN")));
+        MODULES.put("structured", JynxSource.STRUCTURED.source());
+        MODULES.put("ASMTextOps", JynxSource.ASMTEXT.source());
+        MODULES.put("extension", JynxSource.EXTENSION.source());
+    }
+
+    static Stream<Arguments> modules() {
+        return MODULES.entrySet().stream()
+                .map(me -> Arguments.of(me.getKey(), me.getValue()));
+    }
+
+    @Test
+    void everyLibraryHasAModule() {
+        Set<String> registered = ServiceLoader.load(MacroLib.class).stream()
+                .filter(p -> p.type().getPackageName().equals("jynxmacro"))
+                .map(p -> p.get().name())
+                .collect(Collectors.toSet());
+        assertEquals(registered, MODULES.keySet());
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("modules")
+    void assembles(String macrolib, String source) {
+        byte[] bytes = Assembler.assemble(source, "lib/" + macrolib + ".jx");
+        new ClassReader(bytes).accept(new CheckClassAdapter(new ClassNode(), true), 0);
+    }
+
+    private static String wasm(String macrolib, boolean isStatic, String... methods) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(".version V11\n");
+        sb.append(".macrolib ").append(macrolib).append('\n');
+        sb.append(".class public lib/").append(macrolib).append('\n');
+        sb.append(".super java/lang/Object\n");
+        sb.append(".field public ").append(isStatic? "static ": "")
+                .append("__Environment ").append(ENVIRONMENT).append('\n');
+        for (String method : methods) {
+            sb.append(".method public ").append(isStatic? "static ": "").append(method);
+        }
+        return sb.toString();
+    }
+
+    private static String method(String name, String... lines) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(name).append('\n');
+        for (String line : lines) {
+            sb.append("  ").append(line).append('\n');
+        }
+        sb.append(".end_method\n");
+        return sb.toString();
+    }
+
+}
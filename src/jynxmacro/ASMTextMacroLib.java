@@ -26,14 +26,20 @@ public class ASMTextMacroLib extends MacroLib {
             
     private final static String NAME = "ASMTextOps";
         
-    @Override
-    public Map<String, JynxOp> getMacros() {
+    private static final Map<String, JynxOp> MACRO_MAP;
+    
+    static {
         Map<String,JynxOp> map = new HashMap<>();
         JvmOp.getASMOps()
                 .forEach(m-> map.put(m.toString().toUpperCase(), m));
         Stream.of(ASMTextOps.values())
                 .forEach(m -> map.put(m.toString(),m)); // override some ASM ops
-        return map;
+        MACRO_MAP = Map.copyOf(map);
+    }
+
+    @Override
+    public Map<String, JynxOp> getMacros() {
+        return MACRO_MAP;
     }
         
     @Override
@@ -41,11 +47,24 @@ public class ASMTextMacroLib extends MacroLib {
         return NAME;
     }
 
-    private static final String LABEL_REGEX = "L[0-9]+";
+    // equivalent to s.matches("L[0-9]+") without compiling a Pattern per token
+    static boolean isLabel(String s) {
+        int len = s.length();
+        if (len < 2 || s.charAt(0) != 'L') {
+            return false;
+        }
+        for (int i = 1; i < len; ++i) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
     
     @Override
     public Predicate<String> labelTester() {
-        return s->s.matches(LABEL_REGEX);
+        return ASMTextMacroLib::isLabel;
     }
 
     private enum ASMTextOps implements MacroOp {
@@ -75,7 +94,7 @@ public class ASMTextMacroLib extends MacroLib {
         private final JynxOp[] jynxOps;
 
         private ASMTextOps(JynxOp... jops) {
-            this.jynxOps = jops;
+            this.jynxOps = MacroExpander.flatten(name(), jops);
         }
 
         @Override
@@ -35,11 +35,9 @@ public class ASMTextifier extends MacroLib {
         return NAME;
     }
 
-    private static final String LABEL_REGEX = "L[0-9]+";
-    
     @Override
     public Predicate<String> labelTester() {
-        return s->s.matches(LABEL_REGEX);
+        return ASMTextMacroLib::isLabel;
     }
 
     private enum ASMTextOps implements MacroOp {
@@ -277,7 +275,7 @@ public class ASMTextifier extends MacroLib {
         private final JynxOp[] jynxOps;
 
         private ASMTextOps(JynxOp... jops) {
-            this.jynxOps = jops;
+            this.jynxOps = MacroExpander.flatten(name(), jops);
         }
 
         @Override
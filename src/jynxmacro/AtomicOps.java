@@ -0,0 +1,135 @@
+package jynxmacro;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+import jynx2asm.ops.JynxOp;
+import jynx2asm.ops.MacroOp;
+
+// threads proposal memory ops; one table for the wasm32MVP libraries which differ only in how memory is reached
+// sequentially consistent; tokens are alignment and offset; parms are without any environment argument
+enum AtomicOps {
+
+    I32_ATOMIC_LOAD("atomicLoadInt", "(I)I"),
+    I64_ATOMIC_LOAD("atomicLoadLong", "(I)J"),
+    I32_ATOMIC_LOAD8_U("atomicLoadUByte", "(I)I"),
+    I32_ATOMIC_LOAD16_U("atomicLoadUShort", "(I)I"),
+    I64_ATOMIC_LOAD8_U("atomicLoadUByte2Long", "(I)J"),
+    I64_ATOMIC_LOAD16_U("atomicLoadUShort2Long", "(I)J"),
+    I64_ATOMIC_LOAD32_U("atomicLoadUInt2Long", "(I)J"),
+
+    I32_ATOMIC_STORE("atomicStoreInt", "(II)V"),
+    I64_ATOMIC_STORE("atomicStoreLong", "(IJ)V"),
+    I32_ATOMIC_STORE8("atomicStoreByte", "(II)V"),
+    I32_ATOMIC_STORE16("atomicStoreShort", "(II)V"),
+    I64_ATOMIC_STORE8("atomicStoreLong2Byte", "(IJ)V"),
+    I64_ATOMIC_STORE16("atomicStoreLong2Short", "(IJ)V"),
+    I64_ATOMIC_STORE32("atomicStoreLong2Int", "(IJ)V"),
+
+    // read-modify-write returns the old value
+    I32_ATOMIC_RMW_ADD("atomicAddInt", "(II)I"),
+    I64_ATOMIC_RMW_ADD("atomicAddLong", "(IJ)J"),
+    I32_ATOMIC_RMW8_ADD_U("atomicAddUByte", "(II)I"),
+    I32_ATOMIC_RMW16_ADD_U("atomicAddUShort", "(II)I"),
+    I64_ATOMIC_RMW8_ADD_U("atomicAddUByte2Long", "(IJ)J"),
+    I64_ATOMIC_RMW16_ADD_U("atomicAddUShort2Long", "(IJ)J"),
+    I64_ATOMIC_RMW32_ADD_U("atomicAddUInt2Long", "(IJ)J"),
+
+    I32_ATOMIC_RMW_SUB("atomicSubInt", "(II)I"),
+    I64_ATOMIC_RMW_SUB("atomicSubLong", "(IJ)J"),
+    I32_ATOMIC_RMW8_SUB_U("atomicSubUByte", "(II)I"),
+    I32_ATOMIC_RMW16_SUB_U("atomicSubUShort", "(II)I"),
+    I64_ATOMIC_RMW8_SUB_U("atomicSubUByte2Long", "(IJ)J"),
+    I64_ATOMIC_RMW16_SUB_U("atomicSubUShort2Long", "(IJ)J"),
+    I64_ATOMIC_RMW32_SUB_U("atomicSubUInt2Long", "(IJ)J"),
+
+    I32_ATOMIC_RMW_AND("atomicAndInt", "(II)I"),
+    I64_ATOMIC_RMW_AND("atomicAndLong", "(IJ)J"),
+    I32_ATOMIC_RMW8_AND_U("atomicAndUByte", "(II)I"),
+    I32_ATOMIC_RMW16_AND_U("atomicAndUShort", "(II)I"),
+    I64_ATOMIC_RMW8_AND_U("atomicAndUByte2Long", "(IJ)J"),
+    I64_ATOMIC_RMW16_AND_U("atomicAndUShort2Long", "(IJ)J"),
+    I64_ATOMIC_RMW32_AND_U("atomicAndUInt2Long", "(IJ)J"),
+
+    I32_ATOMIC_RMW_OR("atomicOrInt", "(II)I"),
+    I64_ATOMIC_RMW_OR("atomicOrLong", "(IJ)J"),
+    I32_ATOMIC_RMW8_OR_U("atomicOrUByte", "(II)I"),
+    I32_ATOMIC_RMW16_OR_U("atomicOrUShort", "(II)I"),
+    I64_ATOMIC_RMW8_OR_U("atomicOrUByte2Long", "(IJ)J"),
+    I64_ATOMIC_RMW16_OR_U("atomicOrUShort2Long", "(IJ)J"),
+    I64_ATOMIC_RMW32_OR_U("atomicOrUInt2Long", "(IJ)J"),
+
+    I32_ATOMIC_RMW_XOR("atomicXorInt", "(II)I"),
+    I64_ATOMIC_RMW_XOR("atomicXorLong", "(IJ)J"),
+    I32_ATOMIC_RMW8_XOR_U("atomicXorUByte", "(II)I"),
+    I32_ATOMIC_RMW16_XOR_U("atomicXorUShort", "(II)I"),
+    I64_ATOMIC_RMW8_XOR_U("atomicXorUByte2Long", "(IJ)J"),
+    I64_ATOMIC_RMW16_XOR_U("atomicXorUShort2Long", "(IJ)J"),
+    I64_ATOMIC_RMW32_XOR_U("atomicXorUInt2Long", "(IJ)J"),
+
+    I32_ATOMIC_RMW_XCHG("atomicXchgInt", "(II)I"),
+    I64_ATOMIC_RMW_XCHG("atomicXchgLong", "(IJ)J"),
+    I32_ATOMIC_RMW8_XCHG_U("atomicXchgUByte", "(II)I"),
+    I32_ATOMIC_RMW16_XCHG_U("atomicXchgUShort", "(II)I"),
+    I64_ATOMIC_RMW8_XCHG_U("atomicXchgUByte2Long", "(IJ)J"),
+    I64_ATOMIC_RMW16_XCHG_U("atomicXchgUShort2Long", "(IJ)J"),
+    I64_ATOMIC_RMW32_XCHG_U("atomicXchgUInt2Long", "(IJ)J"),
+
+    // address expected replacement -> old value
+    I32_ATOMIC_RMW_CMPXCHG("atomicCmpxchgInt", "(III)I"),
+    I64_ATOMIC_RMW_CMPXCHG("atomicCmpxchgLong", "(IJJ)J"),
+    I32_ATOMIC_RMW8_CMPXCHG_U("atomicCmpxchgUByte", "(III)I"),
+    I32_ATOMIC_RMW16_CMPXCHG_U("atomicCmpxchgUShort", "(III)I"),
+    I64_ATOMIC_RMW8_CMPXCHG_U("atomicCmpxchgUByte2Long", "(IJJ)J"),
+    I64_ATOMIC_RMW16_CMPXCHG_U("atomicCmpxchgUShort2Long", "(IJJ)J"),
+    I64_ATOMIC_RMW32_CMPXCHG_U("atomicCmpxchgUInt2Long", "(IJJ)J"),
+
+    // address expected timeout(ns) -> 0 ok, 1 not-equal, 2 timed-out ; parks so virtual threads unmount
+    MEMORY_ATOMIC_WAIT32("atomicWait32", "(IIJ)I"),
+    MEMORY_ATOMIC_WAIT64("atomicWait64", "(IJJ)I"),
+    // address count -> number woken
+    MEMORY_ATOMIC_NOTIFY("atomicNotify", "(II)I"),
+
+    ;
+
+    private final String method;
+    private final String parms;
+
+    private AtomicOps(String method, String parms) {
+        this.method = method;
+        this.parms = parms;
+    }
+
+    // the ops of a library: prefix (e.g. push the environment) then the access made from method and parms
+    static Map<String, JynxOp> macros(JynxOp prefix, BiFunction<String, String, JynxOp> access) {
+        Map<String, JynxOp> map = new HashMap<>();
+        for (AtomicOps op : values()) {
+            String name = op.name();
+            map.put(name, new AtomicOp(name, prefix, access.apply(op.method, op.parms)));
+        }
+        return Map.copyOf(map);
+    }
+
+    private static final class AtomicOp implements MacroOp {
+
+        private final String name;
+        private final JynxOp[] jynxOps;
+
+        private AtomicOp(String name, JynxOp... jops) {
+            this.name = name;
+            this.jynxOps = MacroExpander.flatten(name, jops);
+        }
+
+        @Override
+        public JynxOp[] getJynxOps() {
+            return jynxOps;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+
+    }
+}
@@ -13,13 +13,19 @@ public class ExtensionMacroLib extends MacroLib {
             
     private final static String NAME = "extension";
         
-    @Override
-    public Map<String,JynxOp> getMacros() {
+    private static final Map<String, JynxOp> MACRO_MAP;
+    
+    static {
         Map<String,JynxOp> map = new HashMap<>();
         map.putAll(JavaCallOps.getMacros());
         map.putAll(ExtendedOps.getMacros());
         map.putAll(SelectOps.getMacros());
-        return map;
+        MACRO_MAP = Map.copyOf(map);
+    }
+
+    @Override
+    public Map<String,JynxOp> getMacros() {
+        return MACRO_MAP;
     }
     
     @Override
@@ -0,0 +1,53 @@
+package jynxmacro;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import jynx2asm.ops.JynxOp;
+import jynx2asm.ops.LineOps;
+import jynx2asm.ops.MacroOp;
+
+final class MacroExpander {
+
+    private MacroExpander() {}
+
+    // expands nested macros once at class initialisation so the assembler does not walk them per line
+    // a nested macro that has a LineOps op (e.g. mac_label, lab_push, tok_swap) is left nested
+    //  so label and token handling is exactly as the assembler does it for the unexpanded macro
+    // a null op (forward reference to a later enum constant, which is not yet initialised) fails class initialisation
+    // a cycle is not possible as an enum constant can only refer to constants already constructed
+    static JynxOp[] flatten(String name, JynxOp... jops) {
+        List<JynxOp> result = new ArrayList<>();
+        expand(name, jops, result);
+        return result.toArray(new JynxOp[0]);
+    }
+
+    private static void expand(String name, JynxOp[] jops, List<JynxOp> result) {
+        for (JynxOp jop : jops) {
+            if (jop == null) {
+                String msg = String.format("unresolved op in macro %s", name);
+                throw new IllegalStateException(msg);
+            }
+            if (jop instanceof MacroOp && !hasLineOp(name, ((MacroOp)jop).getJynxOps())) {
+                expand(name, ((MacroOp)jop).getJynxOps(), result);
+            } else {
+                result.add(jop);
+            }
+        }
+    }
+
+    private static boolean hasLineOp(String name, JynxOp[] jops) {
+        for (JynxOp jop : jops) {
+            if (jop == null) {
+                String msg = String.format("unresolved op in macro %s", name);
+                throw new IllegalStateException(msg);
+            }
+            if (jop instanceof LineOps
+                    || jop instanceof MacroOp && hasLineOp(name, ((MacroOp)jop).getJynxOps())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -20,13 +20,19 @@ public class StructuredMacroLib extends MacroLib {
             
     private final static String NAME = "structured";
 
-    @Override
-    public Map<String, JynxOp> getMacros() {
+    private static final Map<String, JynxOp> MACRO_MAP;
+    
+    static {
         Map<String,JynxOp> map = new HashMap<>();
         Stream.of(StructuredOps.values())
                 .filter(m -> m.name().startsWith("ext_"))
                 .forEach(m -> map.put(m.toString(),m));
-        return map;
+        MACRO_MAP = Map.copyOf(map);
+    }
+
+    @Override
+    public Map<String, JynxOp> getMacros() {
+        return MACRO_MAP;
     }
         
     @Override
@@ -145,9 +151,30 @@ public class StructuredMacroLib extends MacroLib {
         ;
 
         private final JynxOp[] jynxOps;
+        private final String opname;
+        private final IndentType indent;
 
         private StructuredOps(JynxOp... jops) {
-            this.jynxOps = jops;
+            this.jynxOps = MacroExpander.flatten(name(), jops);
+            this.opname = name().substring(4);
+            this.indent = indentOf(name());
+        }
+
+        // ext_IF_ variants (ext_IF_NEZ etc.) all begin a block so are matched by prefix
+        private static IndentType indentOf(String name) {
+            switch (name) {
+                case "ext_BLOCK":
+                case "ext_LOOP":
+                    return IndentType.BEGIN;
+                case "ext_ELSE":
+                    return IndentType.ELSE;
+                case "ext_END":
+                    return IndentType.END;
+            }
+            if (name.startsWith("ext_IF_")) {
+                return IndentType.BEGIN;
+            }
+            return IndentType.NONE;
         }
 
         @Override
@@ -157,24 +184,12 @@ public class StructuredMacroLib extends MacroLib {
 
         @Override
         public String toString() {
-            return name().substring(4);
+            return opname;
         }
 
         @Override
         public IndentType indentType() {
-            switch (this) {
-                case ext_BLOCK:
-                case ext_LOOP:
-                    return IndentType.BEGIN;
-                case ext_ELSE:
-                    return IndentType.ELSE;
-                case ext_END:
-                    return IndentType.END;
-            }
-            if (name().startsWith("ext_IF_")) {
-                return IndentType.BEGIN;
-            }
-            return IndentType.NONE;
+            return indent;
         }
 
     }
@@ -33,9 +33,11 @@ public class WasiMacroLib extends WasmMacroLib {
         ;
             
         private final JynxOp[] jynxOps;
+        private final boolean external;
 
         private WasiOps(JynxOp... jops) {
-            this.jynxOps = jops;
+            this.jynxOps = MacroExpander.flatten(name(), jops);
+            this.external = Character.isUpperCase(name().codePointAt(0));
         }
 
         @Override
@@ -45,7 +47,7 @@ public class WasiMacroLib extends WasmMacroLib {
 
         @Override
         public boolean isExternal() {
-            return Character.isUpperCase(name().codePointAt(0));
+            return external;
         }
 
     }
@@ -0,0 +1,206 @@
+package jynxmacro;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static jynx2asm.ops.AdjustToken.*;
+import static jynx2asm.ops.JvmOp.*;
+import static jynx2asm.ops.LineOps.*;
+
+import jynx2asm.ops.CallOp;
+import jynx2asm.ops.DynamicOp;
+import jynx2asm.ops.JynxOp;
+import jynx2asm.ops.MacroOp;
+
+// wasm32MVP where a module is an instance so one class (and its compiled code) serves many instances
+//  functions are instance methods; this (local 0) holds __Environment, imported and exported tables and storage
+//   and globals
+//  wasm local n is JVM local n + 1
+//  INSTANCE pushes this and must precede the arguments of CALL; CALL_STATIC calls a static method
+//  ENVIRONMENT_NEW is in the constructor
+//  table entries are bound to this when added so CALL_INDIRECT is as wasm32MVP
+// the environment is passed to memory call sites as the last argument instead of as a boot arg
+public class WasmInstanceMacroLib extends WasmMacroLib {
+
+    private final static String NAME = "wasm32MVP_instance";
+
+    private final static String OBJECT_L = CallOp.parmName(Object.class);
+
+    private static final Map<String, JynxOp> INSTANCE_MACRO_MAP = instanceMacros();
+
+    @Override
+    public Map<String, JynxOp> getMacros() {
+        return INSTANCE_MACRO_MAP;
+    }
+
+    // CALL_INDIRECT_CACHED is not supported as its boot arg is the static environment
+    private static Map<String, JynxOp> instanceMacros() {
+        Map<String, JynxOp> map = new HashMap<>(overlay(WasmInstanceOps.values(),
+            AtomicOps.macros(WasmInstanceOps.aux_getenv, WasmInstanceMacroLib::dynInstanceLoadStore)));
+        map.remove("CALL_INDIRECT_CACHED");
+        return Map.copyOf(map);
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    private static String withEnvironment(String parms) {
+        return parms.replace(")", WASM_ENVIRONMENT_L + ")");
+    }
+
+    private static DynamicOp dynInstanceStorage(String method, String parms) {
+        return DynamicOp.withBootParms(method, withEnvironment(parms), BOOTSTRAP,
+            "instanceStorageBootstrap", "I");
+    }
+
+    private static DynamicOp dynInstanceLoadStore(String method, String parms) {
+        return DynamicOp.withBootParms(method, withEnvironment(parms), BOOTSTRAP,
+            "instanceLoadStoreBootstrap", "II");
+    }
+
+    private static DynamicOp dynInstanceTable(String method, String parms) {
+        return DynamicOp.withBootParms(method, withEnvironment(parms), BOOTSTRAP,
+            "instanceTableBootstrap", "I");
+    }
+
+    private enum WasmInstanceOps implements MacroOp {
+
+        aux_newenv(CallOp.of(WASM_ENVIRONMENT,"of","(II)" + WASM_ENVIRONMENT_L)),
+        aux_getenv(asm_aload_0, insert(WASM_ENVIRONMENT_L), insert(ENVIRONMENT_VAR), asm_getfield),
+        aux_setenv(asm_aload_0, asm_swap, insert(WASM_ENVIRONMENT_L), insert(ENVIRONMENT_VAR), asm_putfield),
+        // imports are from fields of this set by the host from the fields exported by another instance
+        aux_gettable(asm_aload_0,insert(WASM_TABLE_L),tok_swap,asm_getfield),
+        aux_settable(asm_aload_0,asm_swap,insert(WASM_TABLE_L),tok_swap,asm_putfield),
+        aux_getstorage(asm_aload_0,insert(WASM_STORAGE_L),tok_swap,asm_getfield),
+        aux_setstorage(asm_aload_0,asm_swap,insert(WASM_STORAGE_L),tok_swap,asm_putfield),
+        // value this -> this value
+        aux_thisswap(asm_aload_0,asm_swap),
+        aux_thisswap2(asm_aload_0,asm_dup_x2,asm_pop),
+
+        INSTANCE(asm_aload_0),
+
+        // init environment
+        ENVIRONMENT_NEW(opc_ildc, opc_ildc, aux_newenv, aux_setenv),
+
+        ENVIRONMENT_IMPORT_TABLE(aux_getenv, aux_gettable, opc_ildc,
+            insertMethod(WASM_ENVIRONMENT,"importTable","(" + WASM_TABLE_L + "I)V"), asm_invokevirtual),
+        ENVIRONMENT_ADD_TABLE(aux_getenv, asm_swap, opc_ildc, insertMethod(WASM_ENVIRONMENT,"addTable","(" + WASM_TABLE_BUILDER_L + "I)V"), asm_invokevirtual),
+        ENVIRONMENT_EXPORT_TABLE(aux_getenv, opc_ildc,
+            insertMethod(WASM_ENVIRONMENT,"exportTable","(I)" + WASM_TABLE_L), asm_invokevirtual, aux_settable),
+
+        ENVIRONMENT_IMPORT_STORAGE(aux_getenv, aux_getstorage, opc_ildc,
+            insertMethod(WASM_ENVIRONMENT,"importStorage","(" + WASM_STORAGE_L + "I)V"), asm_invokevirtual),
+        ENVIRONMENT_ADD_STORAGE(aux_getenv, asm_swap, opc_ildc, insertMethod(WASM_ENVIRONMENT,"addStorage","(" + WASM_STORAGE_L + "I)V"), asm_invokevirtual),
+        ENVIRONMENT_EXPORT_STORAGE(aux_getenv, opc_ildc,
+            insertMethod(WASM_ENVIRONMENT,"exportStorage","(I)" + WASM_STORAGE_L), asm_invokevirtual, aux_setstorage),
+
+        MEMORY_CHECK(asm_ldc,asm_ldc,aux_getenv,WasmInstanceMacroLib.dynInstanceStorage("checkInstance", "(II)V")),
+        BASE64_STORE(aux_getenv,WasmInstanceMacroLib.dynInstanceLoadStore("putBase64String",
+                CallOp.descFrom(void.class, int.class, String.class))),
+        RESOURCE_STORE(aux_getenv,WasmInstanceMacroLib.dynInstanceLoadStore("putResource",
+                CallOp.descFrom(void.class, int.class, String.class))),
+
+        // init functions for initialising table; entries are VL: handles that the builder binds to this
+        TABLE_BUILD(asm_aload_0,CallOp.of(WASM_TABLE_BUILDER,"getInstance","(" + OBJECT_L + ")" + WASM_TABLE_BUILDER_L)),
+        ADD_ENTRY(
+                opc_ildc,
+                asm_iadd,
+                DynamicOp.withBootParms("mharray", "()" + MH_ARRAY_L,
+                    BOOTSTRAP, "constantArrayBootstrap", MH_ARRAY_L),
+                insertMethod(WASM_TABLE_BUILDER,"addVirtual","(I" + MH_ARRAY_L + ")" + WASM_TABLE_BUILDER_L),
+                asm_invokevirtual
+        ),
+
+        CALL(asm_invokevirtual),
+        // for static methods e.g. host functions; INSTANCE is not used
+        CALL_STATIC(asm_invokestatic),
+        CALL_INDIRECT(
+                aux_getenv,
+                asm_swap,
+                opc_ildc,
+                insertMethod(WASM_ENVIRONMENT, "getMH", "(II)" + MH_L),
+                asm_invokevirtual,
+                translateDesc(),
+                replace("I)", MH_L + ")"),
+                DynamicOp.of("invokeExact", null, BOOTSTRAP, "callIndirectBootstrapMH")),
+
+        I32_GLOBAL_GET(asm_aload_0,insert("I"),tok_swap,asm_getfield),
+        I64_GLOBAL_GET(asm_aload_0,insert("J"),tok_swap,asm_getfield),
+        F32_GLOBAL_GET(asm_aload_0,insert("F"),tok_swap,asm_getfield),
+        F64_GLOBAL_GET(asm_aload_0,insert("D"),tok_swap,asm_getfield),
+
+        I32_GLOBAL_SET(aux_thisswap,insert("I"),tok_swap,asm_putfield),
+        I64_GLOBAL_SET(aux_thisswap2,insert("J"),tok_swap,asm_putfield),
+        F32_GLOBAL_SET(aux_thisswap,insert("F"),tok_swap,asm_putfield),
+        F64_GLOBAL_SET(aux_thisswap2,insert("D"),tok_swap,asm_putfield),
+
+        // memory - boot args are alignment and offset
+        I32_LOAD(aux_getenv,WasmInstanceMacroLib.dynInstanceLoadStore("loadInt", "(I)I")),
+        I64_LOAD(aux_getenv,WasmInstanceMacroLib.dynInstanceLoadStore("loadLong", "(I)J")),
+        F32_LOAD(aux_getenv,WasmInstanceMacroLib.dynInstanceLoadStore("loadFloat", "(I)F")),
+        F64_LOAD(aux_getenv,WasmInstanceMacroLib.dynInstanceLoadStore("loadDouble", "(I)D")),
+
+        I32_LOAD8_S(aux_getenv,WasmInstanceMacroLib.dynInstanceLoadStore("loadByte", "(I)I")),
+        I32_LOAD8_U(aux_getenv,WasmInstanceMacroLib.dynInstanceLoadStore("loadUByte", "(I)I")),
+        I32_LOAD16_S(aux_getenv,WasmInstanceMacroLib.dynInstanceLoadStore("loadShort", "(I)I")),
+        I32_LOAD16_U(aux_getenv,WasmInstanceMacroLib.dynInstanceLoadStore("loadUShort", "(I)I")),
+
+        I64_LOAD8_S(aux_getenv,WasmInstanceMacroLib.dynInstanceLoadStore("loadByte2Long", "(I)J")),
+        I64_LOAD8_U(aux_getenv,WasmInstanceMacroLib.dynInstanceLoadStore("loadUByte2Long", "(I)J")),
+        I64_LOAD16_S(aux_getenv,WasmInstanceMacroLib.dynInstanceLoadStore("loadShort2Long", "(I)J")),
+        I64_LOAD16_U(aux_getenv,WasmInstanceMacroLib.dynInstanceLoadStore("loadUShort2Long", "(I)J")),
+        I64_LOAD32_S(aux_getenv,WasmInstanceMacroLib.dynInstanceLoadStore("loadInt2Long", "(I)J")),
+        I64_LOAD32_U(aux_getenv,WasmInstanceMacroLib.dynInstanceLoadStore("loadUInt2Long", "(I)J")),
+
+        I32_STORE(aux_getenv,WasmInstanceMacroLib.dynInstanceLoadStore("storeInt", "(II)V")),
+        I64_STORE(aux_getenv,WasmInstanceMacroLib.dynInstanceLoadStore("storeLong", "(IJ)V")),
+        F32_STORE(aux_getenv,WasmInstanceMacroLib.dynInstanceLoadStore("storeFloat", "(IF)V")),
+        F64_STORE(aux_getenv,WasmInstanceMacroLib.dynInstanceLoadStore("storeDouble", "(ID)V")),
+
+        I32_STORE8(aux_getenv,WasmInstanceMacroLib.dynInstanceLoadStore("storeByte", "(II)V")),
+        I32_STORE16(aux_getenv,WasmInstanceMacroLib.dynInstanceLoadStore("storeShort", "(II)V")),
+
+        I64_STORE8(aux_getenv,WasmInstanceMacroLib.dynInstanceLoadStore("storeLong2Byte", "(IJ)V")),
+        I64_STORE16(aux_getenv,WasmInstanceMacroLib.dynInstanceLoadStore("storeLong2Short", "(IJ)V")),
+        I64_STORE32(aux_getenv,WasmInstanceMacroLib.dynInstanceLoadStore("storeLong2Int", "(IJ)V")),
+
+        MEMORY_SIZE(aux_getenv,WasmInstanceMacroLib.dynInstanceStorage("currentPages", "()I")),
+        MEMORY_GROW(aux_getenv,WasmInstanceMacroLib.dynInstanceStorage("grow", "(I)I")),
+        // boot args are +0 and memory
+        MEMORY_FILL(aux_getenv,insert("+0"),WasmInstanceMacroLib.dynInstanceLoadStore("fill", "(III)V")),
+        MEMORY_COPY(tok_swap, // dest src -> src dest
+                aux_getenv,insert("+0"),WasmInstanceMacroLib.dynInstanceLoadStore("getByteArray", "(II)[B"),
+                aux_getenv,insert("+0"),WasmInstanceMacroLib.dynInstanceLoadStore("putByteArray", "(I[B)V")),
+        MEMORY_COPY_DIRECT(aux_getenv,insert("+0"),WasmInstanceMacroLib.dynInstanceLoadStore("copy", "(III)V"),tok_skip),
+
+        // boot arg is table
+        TABLE_GET(aux_getenv,WasmInstanceMacroLib.dynInstanceTable("get", "(I)" + MH_L)),
+        TABLE_SET(aux_getenv,WasmInstanceMacroLib.dynInstanceTable("set", "(I" + MH_L + ")V")),
+        TABLE_SIZE(aux_getenv,WasmInstanceMacroLib.dynInstanceTable("size", "()I")),
+        TABLE_GROW(aux_getenv,WasmInstanceMacroLib.dynInstanceTable("grow", "(" + MH_L + "I)I")),
+        TABLE_FILL(aux_getenv,WasmInstanceMacroLib.dynInstanceTable("fill", "(I" + MH_L + "I)V")),
+        // tokens are dest and src table
+        TABLE_COPY(aux_getenv,DynamicOp.withBootParms("copy", "(III" + WASM_ENVIRONMENT_L + ")V", BOOTSTRAP,
+            "instanceTableCopyBootstrap", "II")),
+        // token is method e.g. Module/f(II)I; bound to this as table entries are
+        REF_FUNC(insert("VL:"),join(""),asm_ldc,asm_aload_0,
+                insertMethod("java/lang/invoke/MethodHandle","bindTo","(" + OBJECT_L + ")" + MH_L),
+                asm_invokevirtual),
+
+        ;
+
+        private final JynxOp[] jynxOps;
+
+        private WasmInstanceOps(JynxOp... jops) {
+            this.jynxOps = MacroExpander.flatten(name(), jops);
+        }
+
+        @Override
+        public JynxOp[] getJynxOps() {
+            return jynxOps;
+        }
+
+    }
+}
@@ -12,6 +12,7 @@ import static jynx2asm.ops.JavaCallOps.*;
 import static jynx2asm.ops.JvmOp.*;
 import static jynx2asm.ops.LineOps.*;
 import static jynx2asm.ops.SelectOps.*;
+import static jynx2asm.ops.TestToken.check;
 import static jynxmacro.StructuredMacroLib.StructuredOps.*;
 
 import jynx2asm.ops.CallOp;
@@ -27,33 +28,54 @@ public class WasmMacroLib  extends MacroLib {
 
     private final static String NAME = "wasm32MVP";
     
-    private final static String PACKAGE = "com/github/david32768/jynxwasi/";
+    protected final static String PACKAGE = "com/github/david32768/jynxwasi/";
     private final static String WASM_STORAGE = PACKAGE + "Storage";
-    private final static String WASM_STORAGE_L = nameL(WASM_STORAGE);
+    protected final static String WASM_STORAGE_L = nameL(WASM_STORAGE);
     private final static String WASM_HELPER = PACKAGE + "Helper";
-    private final static String WASM_ENVIRONMENT = PACKAGE + "Environment";
-    private final static String WASM_ENVIRONMENT_L =  nameL(WASM_ENVIRONMENT);
-    private final static String ENVIRONMENT_VAR = "__Environment";
-    private final static String GS_WASM_ENVIRONMENT = "GS:" + ENVIRONMENT_VAR + "()" + WASM_ENVIRONMENT_L;
+    protected final static String WASM_ENVIRONMENT = PACKAGE + "Environment";
+    protected final static String WASM_ENVIRONMENT_L =  nameL(WASM_ENVIRONMENT);
+    protected final static String ENVIRONMENT_VAR = "__Environment";
+    protected final static String GS_WASM_ENVIRONMENT = "GS:" + ENVIRONMENT_VAR + "()" + WASM_ENVIRONMENT_L;
     private final static String WASM_TABLE = PACKAGE + "Table";
-    private final static String WASM_TABLE_L =  nameL(WASM_TABLE);
-    private final static String WASM_TABLE_BUILDER = PACKAGE + "TableBuilder";
-    private final static String WASM_TABLE_BUILDER_L =  nameL(WASM_TABLE_BUILDER);
-    private final static String MH_ARRAY_L = CallOp.parmName(MethodHandle[].class);
-    private final static String MH_L = CallOp.parmName(MethodHandle.class);
-    private static final String BOOTSTRAP = PACKAGE + "BootStraps";
-
-    private static String nameL(String classname) {
+    protected final static String WASM_TABLE_L =  nameL(WASM_TABLE);
+    protected final static String WASM_TABLE_BUILDER = PACKAGE + "TableBuilder";
+    protected final static String WASM_TABLE_BUILDER_L =  nameL(WASM_TABLE_BUILDER);
+    protected final static String MH_ARRAY_L = CallOp.parmName(MethodHandle[].class);
+    protected final static String MH_L = CallOp.parmName(MethodHandle.class);
+    protected static final String BOOTSTRAP = PACKAGE + "BootStraps";
+
+    protected static String nameL(String classname) {
         return 'L' + classname + ';'; 
     }
 
-    @Override
-    public Map<String, JynxOp> getMacros() {
-        Map<String,JynxOp> map = new HashMap<>();
+    protected static final Map<String, JynxOp> MACRO_MAP;
+    
+    static {
+        Map<String,JynxOp> map = new HashMap<>(AtomicOps.macros(WasmOps.aux_mem, WasmMacroLib::dynLoadStore));
         Stream.of(WasmOps.values())
                 .filter(m -> Character.isUpperCase(m.name().codePointAt(0)))
                 .forEach(m -> map.put(m.toString(),m));
-        return map;
+        MACRO_MAP = Map.copyOf(map);
+    }
+
+    // for libraries that change the lowering of some ops; their upper case ops replace those of the same name
+    protected static <E extends Enum<E> & MacroOp> Map<String, JynxOp> overlay(E[] ops) {
+        return overlay(ops, Map.of());
+    }
+
+    // as overlay(ops) but generated ops (e.g. from AtomicOps) also replace those of the same name
+    protected static <E extends Enum<E> & MacroOp> Map<String, JynxOp> overlay(E[] ops, Map<String, JynxOp> generated) {
+        Map<String,JynxOp> map = new HashMap<>(MACRO_MAP);
+        map.putAll(generated);
+        Stream.of(ops)
+                .filter(m -> Character.isUpperCase(m.name().codePointAt(0)))
+                .forEach(m -> map.put(m.toString(),m));
+        return Map.copyOf(map);
+    }
+
+    @Override
+    public Map<String, JynxOp> getMacros() {
+        return MACRO_MAP;
     }
         
     @Override
@@ -66,7 +88,7 @@ public class WasmMacroLib  extends MacroLib {
         return EnumSet.of(MacroOption.STRUCTURED_LABELS, MacroOption.INDENT, MacroOption.UNSIGNED_LONG);
     }
 
-    private static final Map<String, String> PARM_MAP;
+    protected static final Map<String, String> PARM_MAP;
     
     static {
         PARM_MAP = new HashMap<>();
@@ -98,7 +120,7 @@ public class WasmMacroLib  extends MacroLib {
         return OWNER_MAP;
     }
     
-    private static JynxOp callHelper(String methodname, String desc) {
+    protected static JynxOp callHelper(String methodname, String desc) {
         return CallOp.of(WASM_HELPER, methodname, desc);
     }
     
@@ -112,6 +134,11 @@ public class WasmMacroLib  extends MacroLib {
             "loadStoreBootstrap", MH_L + "II");
     }
 
+    protected static DynamicOp dynTable(String method, String parms) {
+        return DynamicOp.withBootParms(method, parms, BOOTSTRAP,
+            "tableBootstrap", MH_L + "I");
+    }
+
     private enum WasmOps implements MacroOp {
 
         aux_ilt(asm_iconst_m1,asm_iushr), // shifts right 31 bits i.e. sign bit to one bit
@@ -140,6 +167,8 @@ public class WasmMacroLib  extends MacroLib {
         aux_newenv(CallOp.of(WASM_ENVIRONMENT,"of","(II)" + WASM_ENVIRONMENT_L)),
         aux_newtablebuilder(CallOp.of(WASM_TABLE_BUILDER,"getInstance","()" + WASM_TABLE_BUILDER_L)),
         aux_newmem(CallOp.of(WASM_STORAGE,"getInstance","(II)" + WASM_STORAGE_L)),
+        // needs a runtime with this Storage factory (see README runtime)
+        aux_newsharedmem(CallOp.of(WASM_STORAGE,"getSharedInstance","(II)" + WASM_STORAGE_L)),
         aux_mem(insert(GS_WASM_ENVIRONMENT)),
         aux_addbase0(insert("+0"),tok_swap),
         aux_getenv(insert(WASM_ENVIRONMENT_L), insert(ENVIRONMENT_VAR), asm_getstatic),
@@ -166,10 +195,16 @@ public class WasmMacroLib  extends MacroLib {
     
         // init functions for initialising memory
         MEMORY_NEW(asm_ldc,asm_ldc,aux_newmem),
+        // shared between threads; max pages reserved so it never moves (threads proposal)
+        MEMORY_NEW_SHARED(asm_ldc,asm_ldc,aux_newsharedmem),
         MEMORY_CHECK(asm_ldc,asm_ldc,aux_mem,WasmMacroLib.dynStorage("checkInstance", "(II)V")),        
         STRING_CONST(asm_ldc),
         BASE64_STORE(aux_mem,WasmMacroLib.dynLoadStore("putBase64String",
                 CallOp.descFrom(void.class, int.class, String.class))),
+        // address resource-name ; binary class path resource of the calling class copied in bulk
+        //  so data is not in the constant pool or decoded at start up
+        RESOURCE_STORE(aux_mem,WasmMacroLib.dynLoadStore("putResource",
+                CallOp.descFrom(void.class, int.class, String.class))),
         
         // init functions for initialising table
         TABLE_BUILD(aux_newtablebuilder),
@@ -215,6 +250,14 @@ public class WasmMacroLib  extends MacroLib {
                 translateDesc(),
                 replace("I)", MH_L + ")"),
                 DynamicOp.of("invokeExact", null, BOOTSTRAP, "callIndirectBootstrapMH")),
+        // as CALL_INDIRECT but one call site is passed the index; tokens are table and desc (including the I)
+        // needs a runtime with callIndirectBootstrap (see README runtime)
+        CALL_INDIRECT_CACHED(
+                tok_swap,
+                translateDesc(),
+                insert(GS_WASM_ENVIRONMENT),
+                tok_swap,
+                DynamicOp.withBootParms("callIndirect", null, BOOTSTRAP, "callIndirectBootstrap", MH_L + "I")),
         // parametric operators
         NOP(asm_nop),
         DROP(aux_popn),
@@ -225,6 +268,8 @@ public class WasmMacroLib  extends MacroLib {
         LOCAL_SET(xxx_xstore),
         LOCAL_TEE(aux_dupn,xxx_xstore), // TEE pops and pushes value on stack
 
+        // an immutable global can be declared static final and set in <clinit> with *_GLOBAL_SET
+        //  then C2 treats *_GLOBAL_GET as a constant
         I32_GLOBAL_GET(insert("I"),tok_swap,asm_getstatic),
         I64_GLOBAL_GET(insert("J"),tok_swap,asm_getstatic),
         F32_GLOBAL_GET(insert("F"),tok_swap,asm_getstatic),
@@ -273,6 +318,25 @@ public class WasmMacroLib  extends MacroLib {
         MEMORY_COPY(tok_swap, // dest src -> src dest ; NB not specified which order: dest src assumed
                     aux_mem,aux_addbase0,WasmMacroLib.dynLoadStore("getByteArray", "(II)[B"),
                     aux_mem,aux_addbase0,WasmMacroLib.dynLoadStore("putByteArray", "(I[B)V")),
+        // MEMORY_COPY with no intermediate array; dest memory is used and src memory skipped
+        // needs Storage method copy(int dest, int src, int len) with memmove semantics linked as fill is
+        MEMORY_COPY_DIRECT(aux_mem,aux_addbase0,WasmMacroLib.dynLoadStore("copy", "(III)V"),tok_skip),
+
+        // threads - the atomic loads, stores, read-modify-writes, wait and notify are AtomicOps
+        ATOMIC_FENCE(CallOp.of("java/lang/invoke/VarHandle","fullFence","()V")),
+
+        // reference types - a funcref is a MethodHandle; boot args are environment and table
+        //  tables are of funcref; externref is not supported as the table ops are typed MethodHandle
+        TABLE_GET(aux_mem,WasmMacroLib.dynTable("get", "(I)" + MH_L)),
+        TABLE_SET(aux_mem,WasmMacroLib.dynTable("set", "(I" + MH_L + ")V")),
+        TABLE_SIZE(aux_mem,WasmMacroLib.dynTable("size", "()I")),
+        TABLE_GROW(aux_mem,WasmMacroLib.dynTable("grow", "(" + MH_L + "I)I")),
+        TABLE_FILL(aux_mem,WasmMacroLib.dynTable("fill", "(I" + MH_L + "I)V")),
+        // tokens are dest and src table
+        TABLE_COPY(aux_mem,DynamicOp.withBootParms("copy", "(III)V", BOOTSTRAP, "tableCopyBootstrap", MH_L + "II")),
+        REF_NULL(check("func"),asm_aconst_null), // token must be func; extern is rejected
+        REF_IS_NULL(CallOp.of("java/util/Objects","isNull","(Ljava/lang/Object;)Z")),
+        REF_FUNC(insert("ST:"),join(""),asm_ldc), // token is method e.g. Module/f(II)I
 
         // constants
         I32_CONST(opc_ildc),
@@ -568,31 +632,38 @@ public class WasmMacroLib  extends MacroLib {
         ;
 
         private final JynxOp[] jynxOps;
+        private final IndentType indent;
 
         private WasmOps(JynxOp... jops) {
-            this.jynxOps = jops;
+            this.jynxOps = MacroExpander.flatten(name(), jops);
+            this.indent = indentOf(name());
         }
 
-        @Override
-        public IndentType indentType() {
-            switch (this) {
-                case BLOCK:
-                case LOOP:
+        // switch on name as switch(this) cannot be used while the constants are being constructed
+        private static IndentType indentOf(String name) {
+            switch (name) {
+                case "BLOCK":
+                case "LOOP":
                     return IndentType.BEGIN;
-                case ELSE:
+                case "ELSE":
                     return IndentType.ELSE;
-                case END:
+                case "END":
                     return IndentType.END;
-                case BR_IF:
+                case "BR_IF":
                     return IndentType.NONE;
             }
-            int index = name().indexOf('_');
-            if (name().substring(index + 1).startsWith("IF")) {
+            int index = name.indexOf('_');
+            if (name.startsWith("IF", index + 1)) {
                 return IndentType.BEGIN;
             }
             return IndentType.NONE;
         }
 
+        @Override
+        public IndentType indentType() {
+            return indent;
+        }
+
         @Override
         public JynxOp[] getJynxOps() {
             return jynxOps;
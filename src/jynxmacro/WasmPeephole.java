@@ -0,0 +1,518 @@
+package jynxmacro;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// source to source peephole pass over wasm32MVP .jx text, run before assembly
+//  as a macro only sees its own line
+// usage: WasmPeephole [-low-memory-unused] input.jx output.jx
+public class WasmPeephole {
+
+    private static final String[] INT_COMPARES = {
+        "EQZ", "EQ", "NE", "LT_S", "LT_U", "GT_S", "GT_U", "LE_S", "LE_U", "GE_S", "GE_U"
+    };
+    private static final String[] FLOAT_COMPARES = {"EQ", "NE", "LT", "GT", "LE", "GE"};
+
+    // compare op -> type and condition e.g. I32_LT_U -> I32, LT_U
+    private static final Map<String, String[]> COMPARES;
+    // integer compare -> compare with opposite result
+    private static final Map<String, String> INVERSES;
+    // ops that consume a boolean; fused op is type_op+condition e.g. I32_BR_IFLT_U
+    private static final Set<String> BRANCHES = Set.of("IF", "BR_IF", "SELECT");
+    // boot args are alignment and offset
+    private static final Set<String> LOADS = Set.of(
+        "I32_LOAD", "I64_LOAD", "F32_LOAD", "F64_LOAD",
+        "I32_LOAD8_S", "I32_LOAD8_U", "I32_LOAD16_S", "I32_LOAD16_U",
+        "I64_LOAD8_S", "I64_LOAD8_U", "I64_LOAD16_S", "I64_LOAD16_U", "I64_LOAD32_S", "I64_LOAD32_U");
+    private static final Set<String> STORES = Set.of(
+        "I32_STORE", "I64_STORE", "F32_STORE", "F64_STORE",
+        "I32_STORE8", "I32_STORE16", "I64_STORE8", "I64_STORE16", "I64_STORE32");
+    // ops that push a value without popping so may be between address and store
+    private static final Set<String> PUSHES = Set.of(
+        "I32_CONST", "I64_CONST", "F32_CONST", "F64_CONST", "LOCAL_GET",
+        "I32_GLOBAL_GET", "I64_GLOBAL_GET", "F32_GLOBAL_GET", "F64_GLOBAL_GET");
+    // as binaryen --low-memory-unused; memory below this is not accessed
+    private static final long LOW_MEMORY = 1024;
+
+    static {
+        COMPARES = new HashMap<>();
+        for (String type : new String[]{"I32", "I64"}) {
+            for (String cond : INT_COMPARES) {
+                COMPARES.put(type + "_" + cond, new String[]{type, cond});
+            }
+        }
+        for (String type : new String[]{"F32", "F64"}) {
+            for (String cond : FLOAT_COMPARES) {
+                COMPARES.put(type + "_" + cond, new String[]{type, cond});
+            }
+        }
+        INVERSES = new HashMap<>();
+        String[][] opposites = {{"EQ", "NE"}, {"LT_S", "GE_S"}, {"LT_U", "GE_U"}, {"GT_S", "LE_S"}, {"GT_U", "LE_U"}};
+        for (String type : new String[]{"I32", "I64"}) {
+            for (String[] pair : opposites) {
+                INVERSES.put(type + "_" + pair[0], type + "_" + pair[1]);
+                INVERSES.put(type + "_" + pair[1], type + "_" + pair[0]);
+            }
+        }
+    }
+
+    private final List<Line> out;
+    private final boolean lowMemoryUnused;
+
+    private WasmPeephole(boolean lowMemoryUnused) {
+        this.out = new ArrayList<>();
+        this.lowMemoryUnused = lowMemoryUnused;
+    }
+
+    public static List<String> optimize(List<String> lines) {
+        return optimize(lines, false);
+    }
+
+    // lowMemoryUnused - memory below 1024 is not accessed so address arithmetic can be folded into offsets
+    public static List<String> optimize(List<String> lines, boolean lowMemoryUnused) {
+        WasmPeephole peephole = new WasmPeephole(lowMemoryUnused);
+        for (String text : lines) {
+            peephole.append(Line.of(text));
+        }
+        List<String> result = new ArrayList<>(peephole.out.size());
+        for (Line line : peephole.out) {
+            result.add(line.text);
+        }
+        return result;
+    }
+
+    public static void main(String[] args) throws IOException {
+        boolean lowMemoryUnused = args.length == 3 && args[0].equals("-low-memory-unused");
+        if (args.length != 2 && !lowMemoryUnused) {
+            System.err.println("usage: WasmPeephole [-low-memory-unused] input.jx output.jx");
+            System.exit(1);
+        }
+        int first = lowMemoryUnused? 1: 0;
+        Path input = Paths.get(args[first]);
+        Path output = Paths.get(args[first + 1]);
+        List<String> lines = Files.readAllLines(input);
+        Files.write(output, optimize(lines, lowMemoryUnused));
+    }
+
+    private void append(Line line) {
+        List<Line> replacement = rewrite(line);
+        if (replacement == null) {
+            out.add(line);
+        } else {
+            replacement.forEach(this::append);
+        }
+    }
+
+    // returns null if no rule applies else the lines to append instead
+    //  having removed the lines they replace from out
+    private List<Line> rewrite(Line line) {
+        if (!line.isInstruction()) {
+            return null;
+        }
+        Line last = last(1);
+        if (last == null) {
+            return null;
+        }
+        if (BRANCHES.contains(line.op)) {
+            // x I32_EQZ I32_EQZ branch -> x branch
+            Line previous = last(2);
+            if (last.is("I32_EQZ") && previous != null && previous.is("I32_EQZ")) {
+                removeLast(2);
+                return List.of(line);
+            }
+            // compare branch -> fused compare and branch
+            String[] compare = COMPARES.get(last.op);
+            if (compare != null && last.isBare()) {
+                removeLast(1);
+                return List.of(line.withOp(compare[0] + "_" + line.op + compare[1]));
+            }
+            return null;
+        }
+        // integer compare I32_EQZ -> opposite compare
+        if (line.is("I32_EQZ")) {
+            String inverse = INVERSES.get(last.op);
+            if (inverse != null && last.isBare()) {
+                removeLast(1);
+                return List.of(last.withOp(inverse));
+            }
+        }
+        if (line.isBare() && last.constant() != null) {
+            return foldConstant(line, last);
+        }
+        if (lowMemoryUnused && LOADS.contains(line.op)) {
+            // I32_CONST k I32_ADD load -> load with offset + k
+            Line offset = addOffset(line, 1);
+            if (offset != null) {
+                removeLast(2);
+                return List.of(offset);
+            }
+        }
+        if (lowMemoryUnused && STORES.contains(line.op) && PUSHES.contains(last.op)) {
+            // I32_CONST k I32_ADD value store -> value store with offset + k
+            Line offset = addOffset(line, 2);
+            if (offset != null) {
+                removeLast(3);
+                return List.of(last, offset);
+            }
+        }
+        return null;
+    }
+
+    // memop with offset increased by k if I32_CONST k I32_ADD is at last(n)
+    // wasm address + offset does not wrap but I32_ADD does; if base + k wraps
+    //  the original access is at (base + k - 2^32) + offset < k + offset
+    //  so only if offset + k < LOW_MEMORY is that access one that does not happen
+    // k is unsigned so I32_CONST -4 is not folded
+    private Line addOffset(Line memop, int n) {
+        Line add = last(n);
+        Line addend = last(n + 1);
+        if (add == null || !add.is("I32_ADD") || addend == null || !addend.op.equals("I32_CONST")
+                || memop.operands.length != 2) {
+            return null;
+        }
+        Long k = addend.constant();
+        Long offset = Line.unsigned(memop.operands[1]);
+        if (k == null || k < 0 || offset == null || offset + k >= LOW_MEMORY) {
+            return null;
+        }
+        return memop.with(memop.op, memop.operands[0], Long.toString(offset + k));
+    }
+
+    // last is T_CONST; line is a bare op
+    private List<Line> foldConstant(Line line, Line last) {
+        int index = line.op.indexOf('_');
+        if (index < 0) {
+            return null;
+        }
+        String type = line.op.substring(0, index);
+        String op = line.op.substring(index + 1);
+        long k = last.constant();
+        switch (line.op) {
+            case "I32_EQZ":
+            case "I64_EQZ":
+                if (last.op.startsWith(type)) {
+                    removeLast(1);
+                    return List.of(last.withConstant("I32", k == 0? 1: 0));
+                }
+                return null;
+            case "I32_WRAP_I64":
+                if (last.op.equals("I64_CONST")) {
+                    removeLast(1);
+                    return List.of(last.withConstant("I32", (int)k));
+                }
+                return null;
+            case "I64_EXTEND_S_I32":
+            case "I64_EXTEND_U_I32":
+                if (last.op.equals("I32_CONST")) {
+                    removeLast(1);
+                    long value = op.equals("EXTEND_S_I32")? (int)k: Integer.toUnsignedLong((int)k);
+                    return List.of(last.withConstant("I64", value));
+                }
+                return null;
+        }
+        if (!last.op.equals(type + "_CONST")) {
+            return null;
+        }
+        boolean i32 = type.equals("I32");
+        // T_CONST x T_CONST k T_OP -> T_CONST (x OP k)
+        Line previous = last(2);
+        if (previous != null && last.op.equals(previous.op) && previous.constant() != null) {
+            long x = previous.constant();
+            Long value = i32? foldInt(op, (int)x, (int)k): foldLong(op, x, k);
+            if (value != null) {
+                removeLast(2);
+                return List.of(last.withConstant(type, value));
+            }
+        }
+        long mask = i32? 31: 63;
+        boolean pow2 = k != 0 && (i32? Integer.bitCount((int)k): Long.bitCount(k)) == 1;
+        int shift = i32? Integer.numberOfTrailingZeros((int)k): Long.numberOfTrailingZeros(k);
+        switch (op) {
+            // identity ops
+            case "ADD":
+            case "SUB":
+            case "OR":
+            case "XOR":
+                return k == 0? dropLast(): null;
+            case "SHL":
+            case "SHR_S":
+            case "SHR_U":
+            case "ROTL":
+            case "ROTR":
+                return (k & mask) == 0? dropLast(): null;
+            case "AND":
+                return (i32? (int)k: k) == -1? dropLast(): null;
+            case "DIV_S":
+                return k == 1? dropLast(): null;
+            // multiply and unsigned divide by power of two
+            case "MUL":
+                if (k == 1) {
+                    return dropLast();
+                }
+                if (pow2) {
+                    removeLast(1);
+                    return List.of(last.withConstant(type, shift), line.withOp(type + "_SHL"));
+                }
+                return null;
+            case "DIV_U":
+                if (k == 1) {
+                    return dropLast();
+                }
+                if (pow2) {
+                    removeLast(1);
+                    return List.of(last.withConstant(type, shift), line.withOp(type + "_SHR_U"));
+                }
+                return null;
+            case "REM_U":
+                if (pow2) {
+                    removeLast(1);
+                    return List.of(last.withConstant(type, k - 1), line.withOp(type + "_AND"));
+                }
+                return null;
+            default:
+                return null;
+        }
+    }
+
+    private List<Line> dropLast() {
+        removeLast(1);
+        return List.of();
+    }
+
+    // null if not foldable e.g. would trap
+    private static Long foldInt(String op, int x, int k) {
+        switch (op) {
+            case "ADD":
+                return (long)(x + k);
+            case "SUB":
+                return (long)(x - k);
+            case "MUL":
+                return (long)(x * k);
+            case "AND":
+                return (long)(x & k);
+            case "OR":
+                return (long)(x | k);
+            case "XOR":
+                return (long)(x ^ k);
+            case "SHL":
+                return (long)(x << k);
+            case "SHR_S":
+                return (long)(x >> k);
+            case "SHR_U":
+                return (long)(x >>> k);
+            case "ROTL":
+                return (long)Integer.rotateLeft(x, k);
+            case "ROTR":
+                return (long)Integer.rotateRight(x, k);
+            case "DIV_S":
+                return k == 0 || x == Integer.MIN_VALUE && k == -1? null: (long)(x / k);
+            case "DIV_U":
+                return k == 0? null: (long)Integer.divideUnsigned(x, k);
+            case "REM_S":
+                return k == 0? null: (long)(x % k);
+            case "REM_U":
+                return k == 0? null: (long)Integer.remainderUnsigned(x, k);
+            default:
+                return null;
+        }
+    }
+
+    // null if not foldable e.g. would trap
+    private static Long foldLong(String op, long x, long k) {
+        switch (op) {
+            case "ADD":
+                return x + k;
+            case "SUB":
+                return x - k;
+            case "MUL":
+                return x * k;
+            case "AND":
+                return x & k;
+            case "OR":
+                return x | k;
+            case "XOR":
+                return x ^ k;
+            case "SHL":
+                return x << k;
+            case "SHR_S":
+                return x >> k;
+            case "SHR_U":
+                return x >>> k;
+            case "ROTL":
+                return Long.rotateLeft(x, (int)k);
+            case "ROTR":
+                return Long.rotateRight(x, (int)k);
+            case "DIV_S":
+                return k == 0 || x == Long.MIN_VALUE && k == -1? null: x / k;
+            case "DIV_U":
+                return k == 0? null: Long.divideUnsigned(x, k);
+            case "REM_S":
+                return k == 0? null: x % k;
+            case "REM_U":
+                return k == 0? null: Long.remainderUnsigned(x, k);
+            default:
+                return null;
+        }
+    }
+
+    // n = 1 is the last line; null if not an instruction
+    private Line last(int n) {
+        int index = out.size() - n;
+        if (index < 0) {
+            return null;
+        }
+        Line line = out.get(index);
+        return line.isInstruction() ? line : null;
+    }
+
+    private void removeLast(int n) {
+        for (int i = 0; i < n; ++i) {
+            out.remove(out.size() - 1);
+        }
+    }
+
+    private static class Line {
+
+        private final String text;
+        private final String indent;
+        private final String op; // null if not an instruction
+        private final String[] operands;
+        private final String comment;
+
+        private Line(String text, String indent, String op, String[] operands, String comment) {
+            this.text = text;
+            this.indent = indent;
+            this.op = op;
+            this.operands = operands;
+            this.comment = comment;
+        }
+
+        private static Line of(String text) {
+            String trimmed = text.trim();
+            String indent = text.substring(0, text.indexOf(trimmed));
+            if (trimmed.isEmpty()) {
+                return new Line(text, indent, null, new String[0], null);
+            }
+            String[] tokens = trimmed.split("\\s+");
+            String op = tokens[0];
+            if (!isOpName(op)) {
+                // directive, label, comment or op not from wasm32MVP
+                return new Line(text, indent, null, new String[0], null);
+            }
+            int end = 1;
+            while (end < tokens.length && !tokens[end].startsWith(";")) {
+                ++end;
+            }
+            String[] operands = Arrays.copyOfRange(tokens, 1, end);
+            String comment = end < tokens.length? trimmed.substring(trimmed.indexOf(tokens[end], op.length())): null;
+            return new Line(text, indent, op, operands, comment);
+        }
+
+        private static boolean isOpName(String token) {
+            if (!Character.isUpperCase(token.codePointAt(0))) {
+                return false;
+            }
+            for (int i = 1; i < token.length(); ++i) {
+                char c = token.charAt(i);
+                if (!(c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '_')) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean isInstruction() {
+            return op != null;
+        }
+
+        private boolean is(String opname) {
+            return opname.equals(op) && isBare();
+        }
+
+        // no operands or comment so can be merged into another line
+        private boolean isBare() {
+            return operands.length == 0 && comment == null;
+        }
+
+        // value of a bare decimal I32_CONST or I64_CONST else null
+        private Long constant() {
+            if (operands.length != 1 || comment != null || !(op.equals("I32_CONST") || op.equals("I64_CONST"))) {
+                return null;
+            }
+            String token = operands[0];
+            if (token.endsWith("L") && op.equals("I64_CONST")) {
+                token = token.substring(0, token.length() - 1);
+            }
+            int start = token.startsWith("-")? 1: 0;
+            if (token.length() == start || token.length() > start + 20) {
+                return null;
+            }
+            for (int i = start; i < token.length(); ++i) {
+                char c = token.charAt(i);
+                if (c < '0' || c > '9') {
+                    return null;
+                }
+            }
+            try {
+                if (op.equals("I64_CONST")) {
+                    return Long.parseLong(token);
+                }
+                long value = Long.parseLong(token);
+                if (value < Integer.MIN_VALUE || value > 0xFFFF_FFFFL) {
+                    return null;
+                }
+                return (long)(int)value;
+            } catch (NumberFormatException ex) {
+                return null;
+            }
+        }
+
+        // value of a decimal u32 else null
+        private static Long unsigned(String token) {
+            if (token.isEmpty() || token.length() > 10) {
+                return null;
+            }
+            for (int i = 0; i < token.length(); ++i) {
+                char c = token.charAt(i);
+                if (c < '0' || c > '9') {
+                    return null;
+                }
+            }
+            long value = Long.parseLong(token);
+            return value <= 0xFFFF_FFFFL? value: null;
+        }
+
+        private Line withConstant(String type, long value) {
+            String token = type.equals("I32")? Integer.toString((int)value): Long.toString(value);
+            if (type.equals("I64") && operands.length == 1 && operands[0].endsWith("L")) {
+                token += "L";
+            }
+            return with(type + "_CONST", token);
+        }
+
+        private Line withOp(String newop) {
+            return with(newop, operands);
+        }
+
+        private Line with(String newop, String... newoperands) {
+            StringBuilder sb = new StringBuilder(indent).append(newop);
+            for (String operand : newoperands) {
+                sb.append(' ').append(operand);
+            }
+            if (comment != null) {
+                sb.append(' ').append(comment);
+            }
+            return new Line(sb.toString(), indent, newop, newoperands, comment);
+        }
+
+    }
+
+}
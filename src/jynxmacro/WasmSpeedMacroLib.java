@@ -0,0 +1,114 @@
+package jynxmacro;
+
+import java.util.Map;
+
+import static jynx2asm.ops.AdjustToken.*;
+import static jynx2asm.ops.ExtendedOps.*;
+import static jynx2asm.ops.JavaCallOps.*;
+import static jynx2asm.ops.JvmOp.*;
+import static jynx2asm.ops.LineOps.*;
+
+import jynx2asm.ops.CallOp;
+import jynx2asm.ops.JynxOp;
+import jynx2asm.ops.MacroOp;
+
+// wasm32MVP with comparisons lowered to a jump instead of arithmetic on the compare result
+//  and the trapping conversions to int range checked inline instead of calling Helper
+// larger bytecode; bench LoweringBenchmark compares each lowering with the wasm32MVP one
+// signed division and the conversions to long keep the Helper call (no faster inline, see LoweringBenchmark)
+public class WasmSpeedMacroLib extends WasmMacroLib {
+
+    private final static String NAME = "wasm32MVP_speed";
+
+    private static final Map<String, JynxOp> SPEED_MACRO_MAP = overlay(WasmSpeedOps.values());
+
+    @Override
+    public Map<String, JynxOp> getMacros() {
+        return SPEED_MACRO_MAP;
+    }
+        
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    private enum WasmSpeedOps implements MacroOp {
+
+        // result 1 pushed below the operands; if the jump is not taken it is changed to 0
+        // the label ops are in the op itself, not in a nested macro, as in SELECT
+        aux_true_x1(asm_iconst_1,asm_swap),
+        aux_true_x2(asm_iconst_1,asm_dup_x2,asm_pop),
+        
+        // comparison operators
+        I32_EQZ(aux_true_x1, mac_label, asm_ifeq, asm_iconst_1, asm_ixor, mac_label, xxx_label),
+        I32_EQ(aux_true_x2, mac_label, asm_if_icmpeq, asm_iconst_1, asm_ixor, mac_label, xxx_label),
+        I32_NE(aux_true_x2, mac_label, asm_if_icmpne, asm_iconst_1, asm_ixor, mac_label, xxx_label),
+        I32_LT_S(aux_true_x2, mac_label, asm_if_icmplt, asm_iconst_1, asm_ixor, mac_label, xxx_label),
+        I32_LT_U(aux_true_x2, mac_label, ext_if_iucmplt, asm_iconst_1, asm_ixor, mac_label, xxx_label),
+        I32_GT_S(aux_true_x2, mac_label, asm_if_icmpgt, asm_iconst_1, asm_ixor, mac_label, xxx_label),
+        I32_GT_U(aux_true_x2, mac_label, ext_if_iucmpgt, asm_iconst_1, asm_ixor, mac_label, xxx_label),
+        I32_LE_S(aux_true_x2, mac_label, asm_if_icmple, asm_iconst_1, asm_ixor, mac_label, xxx_label),
+        I32_LE_U(aux_true_x2, mac_label, ext_if_iucmple, asm_iconst_1, asm_ixor, mac_label, xxx_label),
+        I32_GE_S(aux_true_x2, mac_label, asm_if_icmpge, asm_iconst_1, asm_ixor, mac_label, xxx_label),
+        I32_GE_U(aux_true_x2, mac_label, ext_if_iucmpge, asm_iconst_1, asm_ixor, mac_label, xxx_label),
+
+        I64_EQZ(asm_lconst_0, asm_lcmp, aux_true_x1, mac_label, asm_ifeq, asm_iconst_1, asm_ixor, mac_label, xxx_label),
+        I64_EQ(asm_lcmp, aux_true_x1, mac_label, asm_ifeq, asm_iconst_1, asm_ixor, mac_label, xxx_label),
+        I64_NE(asm_lcmp, aux_true_x1, mac_label, asm_ifne, asm_iconst_1, asm_ixor, mac_label, xxx_label),
+        I64_LT_S(asm_lcmp, aux_true_x1, mac_label, asm_iflt, asm_iconst_1, asm_ixor, mac_label, xxx_label),
+        I64_LT_U(inv_lucompare, aux_true_x1, mac_label, asm_iflt, asm_iconst_1, asm_ixor, mac_label, xxx_label),
+        I64_GT_S(asm_lcmp, aux_true_x1, mac_label, asm_ifgt, asm_iconst_1, asm_ixor, mac_label, xxx_label),
+        I64_GT_U(inv_lucompare, aux_true_x1, mac_label, asm_ifgt, asm_iconst_1, asm_ixor, mac_label, xxx_label),
+        I64_LE_S(asm_lcmp, aux_true_x1, mac_label, asm_ifle, asm_iconst_1, asm_ixor, mac_label, xxx_label),
+        I64_LE_U(inv_lucompare, aux_true_x1, mac_label, asm_ifle, asm_iconst_1, asm_ixor, mac_label, xxx_label),
+        I64_GE_S(asm_lcmp, aux_true_x1, mac_label, asm_ifge, asm_iconst_1, asm_ixor, mac_label, xxx_label),
+        I64_GE_U(inv_lucompare, aux_true_x1, mac_label, asm_ifge, asm_iconst_1, asm_ixor, mac_label, xxx_label),
+
+        // NaN compares false except for NE
+        F32_EQ(asm_fcmpl, aux_true_x1, mac_label, asm_ifeq, asm_iconst_1, asm_ixor, mac_label, xxx_label),
+        F32_NE(asm_fcmpl, aux_true_x1, mac_label, asm_ifne, asm_iconst_1, asm_ixor, mac_label, xxx_label),
+        F32_LT(asm_fcmpg, aux_true_x1, mac_label, asm_iflt, asm_iconst_1, asm_ixor, mac_label, xxx_label),
+        F32_GT(asm_fcmpl, aux_true_x1, mac_label, asm_ifgt, asm_iconst_1, asm_ixor, mac_label, xxx_label),
+        F32_LE(asm_fcmpg, aux_true_x1, mac_label, asm_ifle, asm_iconst_1, asm_ixor, mac_label, xxx_label),
+        F32_GE(asm_fcmpl, aux_true_x1, mac_label, asm_ifge, asm_iconst_1, asm_ixor, mac_label, xxx_label),
+
+        F64_EQ(asm_dcmpl, aux_true_x1, mac_label, asm_ifeq, asm_iconst_1, asm_ixor, mac_label, xxx_label),
+        F64_NE(asm_dcmpl, aux_true_x1, mac_label, asm_ifne, asm_iconst_1, asm_ixor, mac_label, xxx_label),
+        F64_LT(asm_dcmpg, aux_true_x1, mac_label, asm_iflt, asm_iconst_1, asm_ixor, mac_label, xxx_label),
+        F64_GT(asm_dcmpl, aux_true_x1, mac_label, asm_ifgt, asm_iconst_1, asm_ixor, mac_label, xxx_label),
+        F64_LE(asm_dcmpg, aux_true_x1, mac_label, asm_ifle, asm_iconst_1, asm_ixor, mac_label, xxx_label),
+        F64_GE(asm_dcmpl, aux_true_x1, mac_label, asm_ifge, asm_iconst_1, asm_ixor, mac_label, xxx_label),
+
+        // trapping conversions to int; double on stack -> int < 0 if in range
+        // the out of range path calls the wasm32MVP Helper method, which traps, with the kept operand
+        // |d + 0.5| < 2^31 + 0.5 is -2^31 - 1 < d < 2^31 and false for NaN
+        aux_i32_range(insert("0.5"), opc_dldc, asm_dadd,
+                CallOp.of("java/lang/Math","abs","(D)D"), insert("2147483648.5"), opc_dldc, asm_dcmpg),
+        // |d - (2^31 - 0.5)| < 2^31 + 0.5 is -1 < d < 2^32
+        aux_u32_range(insert("2147483647.5"), opc_dldc, asm_dsub,
+                CallOp.of("java/lang/Math","abs","(D)D"), insert("2147483648.5"), opc_dldc, asm_dcmpg),
+
+        I32_TRUNC_S_F32(asm_dup, asm_f2d, aux_i32_range, mac_label, asm_iflt,
+                callHelper("floatToInt","(F)I"), asm_aconst_null, asm_athrow, mac_label, xxx_label, asm_f2i),
+        I32_TRUNC_U_F32(asm_dup, asm_f2d, aux_u32_range, mac_label, asm_iflt,
+                callHelper("floatToUnsignedInt","(F)I"), asm_aconst_null, asm_athrow, mac_label, xxx_label, asm_f2l, asm_l2i),
+        I32_TRUNC_S_F64(asm_dup2, aux_i32_range, mac_label, asm_iflt,
+                callHelper("doubleToInt","(D)I"), asm_aconst_null, asm_athrow, mac_label, xxx_label, asm_d2i),
+        I32_TRUNC_U_F64(asm_dup2, aux_u32_range, mac_label, asm_iflt,
+                callHelper("doubleToUnsignedInt","(D)I"), asm_aconst_null, asm_athrow, mac_label, xxx_label, asm_d2l, asm_l2i),
+
+        ;
+
+        private final JynxOp[] jynxOps;
+
+        private WasmSpeedOps(JynxOp... jops) {
+            this.jynxOps = MacroExpander.flatten(name(), jops);
+        }
+
+        @Override
+        public JynxOp[] getJynxOps() {
+            return jynxOps;
+        }
+
+    }
+}
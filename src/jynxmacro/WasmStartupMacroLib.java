@@ -0,0 +1,92 @@
+package jynxmacro;
+
+import java.util.Map;
+
+import static jynx2asm.ops.AdjustToken.*;
+import static jynx2asm.ops.JvmOp.*;
+import static jynx2asm.ops.LineOps.*;
+
+import jynx2asm.ops.JynxOp;
+import jynx2asm.ops.MacroOp;
+
+// wasm32MVP with loads and stores as invokestatic of Helper methods instead of invokedynamic
+//  so there is no bootstrap to link for each call site
+// offset is passed as an argument and alignment (a hint) is ignored
+// faster time to first request for modules with many memory accesses;
+//  steady state may be slower as the environment is read and the offset added on each access
+public class WasmStartupMacroLib extends WasmMacroLib {
+
+    private final static String NAME = "wasm32MVP_startup";
+
+    private static final Map<String, JynxOp> STARTUP_MACRO_MAP = overlay(WasmStartupOps.values());
+
+    @Override
+    public Map<String, JynxOp> getMacros() {
+        return STARTUP_MACRO_MAP;
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    // address offset environment -> value
+    private static JynxOp load(String method, String result) {
+        return callHelper(method, "(II" + WASM_ENVIRONMENT_L + ")" + result);
+    }
+
+    // address value offset environment ->
+    private static JynxOp store(String method, String value) {
+        return callHelper(method, "(I" + value + "I" + WASM_ENVIRONMENT_L + ")V");
+    }
+
+    private enum WasmStartupOps implements MacroOp {
+
+        aux_getenv(insert(WASM_ENVIRONMENT_L), insert(ENVIRONMENT_VAR), asm_getstatic),
+        // tokens are alignment and offset
+        aux_offset(tok_skip, opc_ildc, aux_getenv),
+
+        I32_LOAD(aux_offset,WasmStartupMacroLib.load("loadInt", "I")),
+        I64_LOAD(aux_offset,WasmStartupMacroLib.load("loadLong", "J")),
+        F32_LOAD(aux_offset,WasmStartupMacroLib.load("loadFloat", "F")),
+        F64_LOAD(aux_offset,WasmStartupMacroLib.load("loadDouble", "D")),
+
+        I32_LOAD8_S(aux_offset,WasmStartupMacroLib.load("loadByte", "I")),
+        I32_LOAD8_U(aux_offset,WasmStartupMacroLib.load("loadUByte", "I")),
+        I32_LOAD16_S(aux_offset,WasmStartupMacroLib.load("loadShort", "I")),
+        I32_LOAD16_U(aux_offset,WasmStartupMacroLib.load("loadUShort", "I")),
+
+        I64_LOAD8_S(aux_offset,WasmStartupMacroLib.load("loadByte2Long", "J")),
+        I64_LOAD8_U(aux_offset,WasmStartupMacroLib.load("loadUByte2Long", "J")),
+        I64_LOAD16_S(aux_offset,WasmStartupMacroLib.load("loadShort2Long", "J")),
+        I64_LOAD16_U(aux_offset,WasmStartupMacroLib.load("loadUShort2Long", "J")),
+        I64_LOAD32_S(aux_offset,WasmStartupMacroLib.load("loadInt2Long", "J")),
+        I64_LOAD32_U(aux_offset,WasmStartupMacroLib.load("loadUInt2Long", "J")),
+
+        I32_STORE(aux_offset,WasmStartupMacroLib.store("storeInt", "I")),
+        I64_STORE(aux_offset,WasmStartupMacroLib.store("storeLong", "J")),
+        F32_STORE(aux_offset,WasmStartupMacroLib.store("storeFloat", "F")),
+        F64_STORE(aux_offset,WasmStartupMacroLib.store("storeDouble", "D")),
+
+        I32_STORE8(aux_offset,WasmStartupMacroLib.store("storeByte", "I")),
+        I32_STORE16(aux_offset,WasmStartupMacroLib.store("storeShort", "I")),
+
+        I64_STORE8(aux_offset,WasmStartupMacroLib.store("storeLong2Byte", "J")),
+        I64_STORE16(aux_offset,WasmStartupMacroLib.store("storeLong2Short", "J")),
+        I64_STORE32(aux_offset,WasmStartupMacroLib.store("storeLong2Int", "J")),
+
+        ;
+
+        private final JynxOp[] jynxOps;
+
+        private WasmStartupOps(JynxOp... jops) {
+            this.jynxOps = MacroExpander.flatten(name(), jops);
+        }
+
+        @Override
+        public JynxOp[] getJynxOps() {
+            return jynxOps;
+        }
+
+    }
+}
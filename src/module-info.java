@@ -2,6 +2,9 @@ module com.github.david32768.jynxmacro {
 	requires com.github.david32768.jynx;
 	provides jynx2asm.ops.MacroLib with
 		jynxmacro.WasmMacroLib,
+		jynxmacro.WasmSpeedMacroLib,
+		jynxmacro.WasmStartupMacroLib,
+		jynxmacro.WasmInstanceMacroLib,
 		jynxmacro.StructuredMacroLib,
 		jynxmacro.ASMTextMacroLib,
 		jynxmacro.ExtensionMacroLib;
@@ -15,6 +18,9 @@ module com.github.david32768.jynxmacro {
 .requires com.github.david32768.jynx 0.20
 .provides jynx2asm/ops/MacroLib with .array
   jynxmacro/WasmMacroLib
+  jynxmacro/WasmSpeedMacroLib
+  jynxmacro/WasmStartupMacroLib
+  jynxmacro/WasmInstanceMacroLib
   jynxmacro/StructuredMacroLib
   jynxmacro/ASMTextMacroLib
   jynxmacro/ExtensionMacroLib